@@ -0,0 +1,39 @@
+package com.github.igorsuhorukov.dom.transform.benchmark;
+
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.NopTypeConverter;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Node;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DomToMapBenchmark {
+
+    @Param({"docbook", "deep", "wide", "text", "attributes"})
+    private String document;
+
+    @Param({"nop", "auto"})
+    private String typeConverter;
+
+    private DomTransformer domTransformer;
+    private Node root;
+
+    @Setup
+    public void setUp() throws Exception {
+        domTransformer = new DomTransformer("auto".equals(typeConverter) ? new TypeAutoDetect() : new NopTypeConverter());
+        root = SyntheticDocuments.parse(SyntheticDocuments.getDocument(document)).getDocumentElement();
+    }
+
+    @Benchmark
+    public Map<String, Object> transform() {
+        return domTransformer.transform(root);
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.igorsuhorukov.dom.transform.benchmark;
+
+import com.github.igorsuhorukov.dom.transform.CompactMapTransformer;
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.openjdk.jol.info.GraphLayout;
+import org.w3c.dom.Node;
+
+import java.util.Map;
+
+/**
+ * Retained heap of transformation result with default and compact maps. Run with
+ * <code>java -cp target/benchmarks.jar com.github.igorsuhorukov.dom.transform.benchmark.HeapFootprint [document...]</code>
+ */
+public class HeapFootprint {
+
+    public static void main(String[] args) throws Exception {
+        String[] documents = args.length > 0 ? args : new String[]{"docbook", "deep", "wide", "text", "attributes"};
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect());
+        CompactMapTransformer compactMapTransformer = new CompactMapTransformer(domTransformer);
+        System.out.printf("%-12s %14s %14s %8s%n", "document", "default bytes", "compact bytes", "ratio");
+        for(String document: documents){
+            Node root = SyntheticDocuments.parse(SyntheticDocuments.getDocument(document)).getDocumentElement();
+            Map<String, Object> regular = domTransformer.transform(root);
+            Map<String, Object> compact = compactMapTransformer.transform(root);
+            long regularSize = GraphLayout.parseInstance(regular).totalSize();
+            long compactSize = GraphLayout.parseInstance(compact).totalSize();
+            System.out.printf("%-12s %14d %14d %8.2f%n", document, regularSize, compactSize, (double) compactSize / regularSize);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.igorsuhorukov.dom.transform.benchmark;
+
+import org.apache.jackrabbit.util.ISO9075;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ISO9075Benchmark {
+
+    @Param({"title", "xl:href", "1name", "name with spaces", "_x0031_name", "имя"})
+    private String name;
+
+    private String encodedName;
+
+    @Setup
+    public void setUp() {
+        encodedName = ISO9075.encode(name);
+    }
+
+    @Benchmark
+    public String encode() {
+        return ISO9075.encode(name);
+    }
+
+    @Benchmark
+    public String decode() {
+        return ISO9075.decode(encodedName);
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.igorsuhorukov.dom.transform.benchmark;
+
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Node;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapToDomBenchmark {
+
+    private static final OutputStream NULL_OUTPUT = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param({"docbook", "deep", "wide", "text", "attributes"})
+    private String document;
+
+    private DomTransformer domTransformer;
+    private Map<String, Object> map;
+
+    @Setup
+    public void setUp() throws Exception {
+        domTransformer = new DomTransformer(new TypeAutoDetect());
+        map = domTransformer.transform(SyntheticDocuments.parse(SyntheticDocuments.getDocument(document)).getDocumentElement());
+    }
+
+    @Benchmark
+    public Node transform() {
+        return domTransformer.transform(map);
+    }
+
+    @Benchmark
+    public void writeXml() throws IOException {
+        domTransformer.writeXml(map, NULL_OUTPUT);
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.igorsuhorukov.dom.transform.benchmark;
+
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.ParallelDomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Node;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Speed-up of parallel DOM conversion against number of pool threads, parallelism 0 is sequential
+ * {@link DomTransformer#transform(Node)}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelDomToMapBenchmark {
+
+    @Param({"records", "attributes", "wide"})
+    private String document;
+
+    @Param({"0", "1", "2", "4", "8", "16", "32"})
+    private int parallelism;
+
+    private DomTransformer domTransformer;
+    private ParallelDomTransformer parallelDomTransformer;
+    private ForkJoinPool pool;
+    private Node root;
+
+    @Setup
+    public void setUp() throws Exception {
+        domTransformer = new DomTransformer(new TypeAutoDetect());
+        if(parallelism > 0){
+            pool = new ForkJoinPool(parallelism);
+            parallelDomTransformer = new ParallelDomTransformer(domTransformer, pool, ParallelDomTransformer.DEFAULT_THRESHOLD);
+        }
+        root = SyntheticDocuments.parse(SyntheticDocuments.getDocument(document)).getDocumentElement();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if(pool!=null){
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> transform() {
+        return parallelism > 0 ? parallelDomTransformer.transform(root) : domTransformer.transform(root);
+    }
+}
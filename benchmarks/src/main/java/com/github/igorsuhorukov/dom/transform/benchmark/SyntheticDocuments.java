@@ -0,0 +1,109 @@
+package com.github.igorsuhorukov.dom.transform.benchmark;
+
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Documents for benchmarks: docbook.xml from tests and generated documents of typical shapes
+ */
+public class SyntheticDocuments {
+
+    private SyntheticDocuments() {
+    }
+
+    public static byte[] getDocument(String name) throws IOException {
+        switch (name){
+            case "docbook": return readDocbook();
+            case "deep": return deep(500);
+            case "wide": return wide(20000, 200);
+            case "text": return textHeavy(200, 4096);
+            case "attributes": return attributeHeavy(2000, 20);
+            case "records": return records(50000);
+            default: throw new IllegalArgumentException("unknown document "+name);
+        }
+    }
+
+    public static Document parse(byte[] xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+
+    static byte[] readDocbook() throws IOException {
+        try (InputStream stream = SyntheticDocuments.class.getResourceAsStream("/docbook.xml")){
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for(int read; (read = stream.read(buffer)) > 0;){
+                content.write(buffer, 0, read);
+            }
+            return content.toByteArray();
+        }
+    }
+
+    public static byte[] deep(int depth) {
+        StringBuilder xml = new StringBuilder("<root>");
+        for(int i = 0; i < depth; i++){
+            xml.append("<level id=\"").append(i).append("\"><name>level ").append(i).append("</name>");
+        }
+        for(int i = 0; i < depth; i++){
+            xml.append("</level>");
+        }
+        return xml.append("</root>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] wide(int children, int names) {
+        StringBuilder xml = new StringBuilder("<catalog>");
+        for(int i = 0; i < children; i++){
+            xml.append("<item").append(i % names).append('>').append(i).append("</item").append(i % names).append('>');
+        }
+        return xml.append("</catalog>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] textHeavy(int paragraphs, int paragraphLength) {
+        StringBuilder xml = new StringBuilder("<article>");
+        for(int i = 0; i < paragraphs; i++){
+            xml.append("<para>");
+            for(int length = 0; length < paragraphLength; length += 10){
+                xml.append("lorem &amp; ");
+            }
+            xml.append("</para>");
+        }
+        return xml.append("</article>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] attributeHeavy(int elements, int attributes) {
+        StringBuilder xml = new StringBuilder("<rows>");
+        for(int i = 0; i < elements; i++){
+            xml.append("<row");
+            for(int attribute = 0; attribute < attributes; attribute++){
+                xml.append(" a").append(attribute).append("=\"");
+                switch (attribute % 4){
+                    case 0: xml.append(i); break;
+                    case 1: xml.append(attribute % 2==0); break;
+                    case 2: xml.append(i).append('.').append(attribute); break;
+                    default: xml.append("USD");
+                }
+                xml.append('"');
+            }
+            xml.append("/>");
+        }
+        return xml.append("</rows>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] records(int count) {
+        StringBuilder xml = new StringBuilder("<records>");
+        for(int i = 0; i < count; i++){
+            xml.append("<record id=\"").append(i).append("\" status=\"").append(i % 2==0 ? "active" : "closed").append("\">");
+            xml.append("<name>record ").append(i).append("</name><amount currency=\"USD\">").append(i % 1000).append(".25</amount>");
+            for(int tag = 0; tag < 5; tag++){
+                xml.append("<tag>t").append((i + tag) % 50).append("</tag>");
+            }
+            xml.append("<flag>").append(i % 3==0).append("</flag></record>");
+        }
+        return xml.append("</records>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
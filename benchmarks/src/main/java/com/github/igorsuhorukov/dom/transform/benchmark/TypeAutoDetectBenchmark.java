@@ -0,0 +1,33 @@
+package com.github.igorsuhorukov.dom.transform.benchmark;
+
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypeAutoDetectBenchmark {
+
+    @Param({"true", "12345", "-123.456", "012345678901234567890", "USD", "plain text value"})
+    private String value;
+
+    @Param({"BIG_NUMBERS", "PRIMITIVE_WHEN_EXACT"})
+    private TypeAutoDetect.NumberPolicy numberPolicy;
+
+    private TypeAutoDetect typeAutoDetect;
+
+    @Setup
+    public void setUp() {
+        typeAutoDetect = new TypeAutoDetect(numberPolicy);
+    }
+
+    @Benchmark
+    public Object transform() {
+        return typeAutoDetect.transform(value);
+    }
+}
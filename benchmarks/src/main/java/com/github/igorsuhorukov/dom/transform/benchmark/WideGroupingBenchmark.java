@@ -0,0 +1,56 @@
+package com.github.igorsuhorukov.dom.transform.benchmark;
+
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.NopTypeConverter;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sibling grouping of wide elements with many repeated names. Time per operation should grow linearly with the
+ * number of children: 8 times more children is ~8 times slower, grouping which re-scans children per key ~64 times.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WideGroupingBenchmark {
+
+    @Param({"20000", "160000"})
+    private int children;
+
+    private DomTransformer domTransformer;
+    private Element element;
+
+    @Setup
+    public void setUp() throws Exception {
+        domTransformer = new DomTransformer(new NopTypeConverter());
+        element = createWideElement(children, children / 4, new Random(1));
+    }
+
+    @Benchmark
+    public Map<String, Object> transform() {
+        return domTransformer.transform(element);
+    }
+
+    /**
+     * Every tenth child name is ISO 9075 encoded
+     */
+    static Element createWideElement(int childCount, int nameCount, Random random) throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element wide = document.createElement("wide");
+        for(int i = 0; i < childCount; i++){
+            Element child = document.createElement(random.nextInt(10)==0 ? "_x0031_n"+random.nextInt(nameCount) : "n"+random.nextInt(nameCount));
+            child.appendChild(document.createTextNode(Integer.toString(i)));
+            wide.appendChild(child);
+        }
+        return wide;
+    }
+}
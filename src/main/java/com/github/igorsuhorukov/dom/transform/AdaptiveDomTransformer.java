@@ -0,0 +1,257 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import com.github.igorsuhorukov.dom.transform.profile.CorpusStatistics;
+import com.github.igorsuhorukov.dom.transform.profile.ElementStatistics;
+import com.github.igorsuhorukov.dom.transform.profile.ShapeInference;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Learn element shapes of documents at runtime and switch to the fast path when enough documents with the same root
+ * element were seen. Results are always equal to {@link DomTransformer#transform(Node)}, in the same key order.
+ * <p/>
+ * Fast path converts elements whose nested elements never repeated during learning without sibling grouping and
+ * intermediate maps, other elements are grouped as usual. Document with unknown nested element or with repeated
+ * element where it was unique is converted by {@link DomTransformer} again, then it is added to learned shape and
+ * fast path is recompiled. After {@link #MAX_COMPILATIONS} recompilations root element stays on generic path.
+ * <p/>
+ * Learning, compilation and fast path are recursive, so documents deeper than {@link #MAX_DEPTH} are converted by
+ * the iterative generic path and are not learned. Depth of compiled shapes is bounded the same way.
+ * <p/>
+ * Transformer is thread safe: learned statistics are guarded by root state lock, compiled shapes are immutable and
+ * published through volatile field.
+ */
+public class AdaptiveDomTransformer {
+
+    public static final int DEFAULT_SAMPLE_SIZE = 100;
+    /**
+     * Max nesting depth of learned documents
+     */
+    public static final int MAX_DEPTH = 1000;
+    static final int MAX_COMPILATIONS = 8;
+    static final int MAX_ROOTS = 1024;
+
+    private final DomTransformer domTransformer;
+    private final int sampleSize;
+    private final ShapeInference shapeInference = new ShapeInference();
+    private final ConcurrentHashMap<String, RootState> roots = new ConcurrentHashMap<>();
+    private final LongAdder learnedCount = new LongAdder();
+    private final LongAdder switchCount = new LongAdder();
+    private final LongAdder deoptimizationCount = new LongAdder();
+    private final LongAdder fastPathCount = new LongAdder();
+
+    public AdaptiveDomTransformer(DomTransformer domTransformer) {
+        this(domTransformer, DEFAULT_SAMPLE_SIZE);
+    }
+
+    /**
+     * @param sampleSize number of documents with the same root element learned before switch to the fast path
+     */
+    public AdaptiveDomTransformer(DomTransformer domTransformer, int sampleSize) {
+        if(sampleSize < 1){
+            throw new IllegalArgumentException("sampleSize must be positive: "+sampleSize);
+        }
+        this.domTransformer = domTransformer;
+        this.sampleSize = sampleSize;
+    }
+
+    public Map<String, Object> transform(Node node) {
+        RootState state = node.getNodeType()==Node.ELEMENT_NODE ? getRootState(node.getNodeName()) : null;
+        if(state==null || state.disabled){
+            return domTransformer.transform(node);
+        }
+        FastShape shape = state.shape;
+        if(shape!=null){
+            try {
+                Map<String, Object> result = Collections.singletonMap(state.key, value(node, shape));
+                fastPathCount.increment();
+                return result;
+            } catch (ShapeDeviation e) {
+                deoptimizationCount.increment();
+                Map<String, Object> result = domTransformer.transform(node);
+                learn(state, node, shape);
+                return result;
+            }
+        }
+        Map<String, Object> result = domTransformer.transform(node);
+        learn(state, node, null);
+        return result;
+    }
+
+    /**
+     * @return number of documents added to learned shapes
+     */
+    public long getLearnedCount() {
+        return learnedCount.sum();
+    }
+
+    /**
+     * @return number of fast path compilations
+     */
+    public long getSwitchCount() {
+        return switchCount.sum();
+    }
+
+    /**
+     * @return number of documents which didn't match learned shape on the fast path
+     */
+    public long getDeoptimizationCount() {
+        return deoptimizationCount.sum();
+    }
+
+    public long getFastPathCount() {
+        return fastPathCount.sum();
+    }
+
+    private RootState getRootState(String name) {
+        RootState state = roots.get(name);
+        if(state==null && roots.size() < MAX_ROOTS){
+            state = roots.computeIfAbsent(name, RootState::new);
+        }
+        return state;
+    }
+
+    /**
+     * @param deoptimizedShape shape which didn't match the document, null when document is converted during learning
+     */
+    private void learn(RootState state, Node node, FastShape deoptimizedShape) {
+        if(DomTransformer.isDeeperThan(node, MAX_DEPTH)){
+            return;
+        }
+        CorpusStatistics sample = new CorpusStatistics();
+        shapeInference.addRoot(sample, node);
+        synchronized (state){
+            if(state.disabled || state.shape!=deoptimizedShape){
+                //other thread switched or recompiled meanwhile
+                return;
+            }
+            state.statistics.merge(sample);
+            state.learnedDocuments++;
+            learnedCount.increment();
+            if(deoptimizedShape==null && state.learnedDocuments < sampleSize){
+                return;
+            }
+            if(state.compilations >= MAX_COMPILATIONS){
+                state.disabled = true;
+                state.shape = null;
+                return;
+            }
+            state.compilations++;
+            state.shape = compile(state.statistics.getRoots().get(state.name));
+            switchCount.increment();
+        }
+    }
+
+    private FastShape compile(ElementStatistics statistics) {
+        NameCache nameCache = domTransformer.getNameCache();
+        Map<String, ElementStatistics> elements = statistics.getElements();
+        FastShape shape = new FastShape(new NameIndex(elements.keySet()));
+        Set<String> keys = new HashSet<>();
+        boolean unique = true;
+        int index = 0;
+        for(Map.Entry<String, ElementStatistics> element: elements.entrySet()){
+            String name = element.getKey();
+            shape.nestedKeys[index] = nameCache.decode(name);
+            shape.keys[index] = nameCache.decode(shape.nestedKeys[index]);
+            shape.children[index] = compile(element.getValue());
+            unique &= element.getValue().getMaxOccurrences() <= 1 && keys.add(shape.nestedKeys[index]);
+            index++;
+        }
+        shape.unique = unique;
+        return shape;
+    }
+
+    private Object value(Node node, FastShape shape) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        NamedNodeMap attributes = node.getAttributes();
+        if(attributes!=null && attributes.getLength() > 0){
+            Map<String, Object> attributeMap = new HashMap<>();
+            for(int i = 0; i < attributes.getLength(); i++){
+                Node attribute = attributes.item(i);
+                domTransformer.putAttribute(attributeMap, attribute.getNodeName(), attribute.getNodeValue());
+            }
+            result.putAll(attributeMap);
+        }
+        String text = DomTransformer.joinText(node);
+        if(text!=null && !DomTransformer.isWhitespace(text)){
+            result.put(domTransformer.getValueName(), domTransformer.getTypeConverter().transform(text.trim()));
+        }
+        if(shape.unique){
+            putUniqueElements(node, shape, result);
+        } else {
+            List<Map<String, Object>> nestedElements = new ArrayList<>();
+            for(Node child = node.getFirstChild(); child!=null; child = child.getNextSibling()){
+                if(DomTransformer.isNestedNode(child)){
+                    int index = shape.names.indexOf(child.getNodeName());
+                    nestedElements.add(index >= 0 ?
+                            Collections.singletonMap(shape.nestedKeys[index], value(child, shape.children[index])) :
+                            domTransformer.transformNested(child));
+                }
+            }
+            domTransformer.processNestedElements(result, nestedElements);
+        }
+        if(result.size()==1 && result.containsKey(domTransformer.getValueName())){
+            return result.values().iterator().next();
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    private void putUniqueElements(Node node, FastShape shape, Map<String, Object> result) {
+        boolean[] seen = null;
+        for(Node child = node.getFirstChild(); child!=null; child = child.getNextSibling()){
+            if(DomTransformer.isNestedNode(child)){
+                int index = shape.names.indexOf(child.getNodeName());
+                if(index < 0){
+                    throw ShapeDeviation.INSTANCE;
+                }
+                if(seen==null){
+                    seen = new boolean[shape.names.size()];
+                }
+                if(seen[index]){
+                    throw ShapeDeviation.INSTANCE;
+                }
+                seen[index] = true;
+                result.put(shape.keys[index], domTransformer.getTypeConverter().transform(value(child, shape.children[index])));
+            }
+        }
+    }
+
+    private class RootState {
+        private final String name;
+        private final String key;
+        private final CorpusStatistics statistics = new CorpusStatistics();
+        private int learnedDocuments;
+        private int compilations;
+        private volatile FastShape shape;
+        private volatile boolean disabled;
+
+        private RootState(String name) {
+            this.name = name;
+            this.key = domTransformer.getNameCache().decode(name);
+        }
+    }
+
+    /**
+     * Learned nested elements: names, nested result keys, keys in parent map and shapes. Shape is unique when nested
+     * elements never repeated.
+     */
+    private static class FastShape {
+        private final NameIndex names;
+        private final String[] nestedKeys;
+        private final String[] keys;
+        private final FastShape[] children;
+        private boolean unique;
+
+        private FastShape(NameIndex names) {
+            this.names = names;
+            int size = names.size();
+            nestedKeys = new String[size];
+            keys = new String[size];
+            children = new FastShape[size];
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import com.github.igorsuhorukov.dom.transform.document.DefaultDocumentCreator;
+import com.github.igorsuhorukov.dom.transform.document.DocumentCreator;
+import com.github.igorsuhorukov.dom.transform.document.PooledDocumentCreator;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Convert many independent documents on {@link Executor}. Results are returned in input order, at most
+ * maxConcurrency items are converted or wait for delivery at the same time, so memory is bounded also for infinite
+ * input in {@link #forEachOrdered(Iterator, Function, Consumer)}.
+ * <p/>
+ * Default executor runs each item in virtual thread on Java 21+ and in {@link ForkJoinPool#commonPool()} otherwise.
+ * XML is parsed by tuned parsers from shared pool, see {@link DomTransformer#transform(byte[])}. Documents for maps
+ * are created by {@link PooledDocumentCreator} instead of thread local default creator, so builders are reused by
+ * virtual threads too. Each node must belong to own document, as DOM is not thread safe.
+ */
+public class BatchTransformer {
+
+    private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+
+    private final DomTransformer domTransformer;
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final DocumentCreator documentCreator;
+
+    public BatchTransformer(DomTransformer domTransformer) {
+        this(domTransformer, DEFAULT_EXECUTOR, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchTransformer(DomTransformer domTransformer, Executor executor, int maxConcurrency) {
+        if(maxConcurrency < 1){
+            throw new IllegalArgumentException("maxConcurrency must be positive: "+maxConcurrency);
+        }
+        this.domTransformer = domTransformer;
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        //custom creator of transformer is kept, thread local default one is replaced with pool
+        this.documentCreator = domTransformer.getDocumentCreator() instanceof DefaultDocumentCreator ?
+                new PooledDocumentCreator(DocumentBuilderFactory.newInstance(), maxConcurrency) :
+                domTransformer.getDocumentCreator();
+    }
+
+    public List<Map<String, Object>> transformNodes(Iterable<? extends Node> nodes) {
+        return transform(nodes.iterator(), domTransformer::transform);
+    }
+
+    public List<Map<String, Object>> transformNodes(Stream<? extends Node> nodes) {
+        return transform(nodes.iterator(), domTransformer::transform);
+    }
+
+    public List<Map<String, Object>> transformXml(Iterable<byte[]> documents) {
+        return transform(documents.iterator(), domTransformer::transform);
+    }
+
+    public List<Map<String, Object>> transformXml(Stream<byte[]> documents) {
+        return transform(documents.iterator(), domTransformer::transform);
+    }
+
+    public List<Node> transformMaps(Iterable<Map<String, Object>> maps) {
+        return transform(maps.iterator(), this::createNode);
+    }
+
+    public List<Node> transformMaps(Stream<Map<String, Object>> maps) {
+        return transform(maps.iterator(), this::createNode);
+    }
+
+    public <I, O> List<O> transform(Iterator<I> inputs, Function<? super I, O> conversion) {
+        List<O> results = new ArrayList<>();
+        forEachOrdered(inputs, conversion, results::add);
+        return results;
+    }
+
+    /**
+     * Pass conversion results to consumer in input order, consumer is called in the current thread.
+     * The first failure in input order is rethrown.
+     */
+    public <I, O> void forEachOrdered(Iterator<I> inputs, Function<? super I, O> conversion, Consumer<? super O> consumer) {
+        Deque<CompletableFuture<O>> pending = new ArrayDeque<>(maxConcurrency);
+        while(inputs.hasNext()){
+            if(pending.size() >= maxConcurrency){
+                consumer.accept(getResult(pending.poll()));
+            }
+            I input = inputs.next();
+            CompletableFuture<O> result = new CompletableFuture<>();
+            executor.execute(() -> {
+                try {
+                    result.complete(conversion.apply(input));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            pending.add(result);
+        }
+        while(!pending.isEmpty()){
+            consumer.accept(getResult(pending.poll()));
+        }
+    }
+
+    private static <O> O getResult(CompletableFuture<O> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            if(e.getCause() instanceof Error){
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private Node createNode(Map<String, Object> objectMap) {
+        if(objectMap.size()!=1){
+            throw new IllegalArgumentException("map size must be 1");
+        }
+        return domTransformer.transform(documentCreator.newDocument(), objectMap);
+    }
+
+    /**
+     * Virtual thread per task executor is looked up by reflection to keep Java 8 compatibility
+     */
+    private static Executor createDefaultExecutor() {
+        try {
+            Method factoryMethod = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (Executor) factoryMethod.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return ForkJoinPool.commonPool();
+        }
+    }
+}
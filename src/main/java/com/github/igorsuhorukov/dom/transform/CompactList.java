@@ -0,0 +1,26 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list over exactly sized array
+ */
+final class CompactList extends AbstractList<Object> implements RandomAccess {
+
+    private final Object[] items;
+
+    CompactList(Object[] items) {
+        this.items = items;
+    }
+
+    @Override
+    public Object get(int index) {
+        return items[index];
+    }
+
+    @Override
+    public int size() {
+        return items.length;
+    }
+}
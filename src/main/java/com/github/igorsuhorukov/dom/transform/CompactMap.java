@@ -0,0 +1,116 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import java.util.*;
+
+/**
+ * Immutable insertion ordered map backed by value array. Keys are kept in {@link Shape} shared by all maps
+ * with the same key sequence.
+ */
+final class CompactMap extends AbstractMap<String, Object> {
+
+    private final Shape shape;
+    private final Object[] values;
+
+    CompactMap(Shape shape, Object[] values) {
+        this.shape = shape;
+        this.values = values;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return shape.indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = shape.indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<Entry<String, Object>>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < values.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if(index >= values.length){
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, Object> entry = new SimpleImmutableEntry<>(shape.keys[index], values[index]);
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+
+    /**
+     * Key sequence of map. Maps with many keys get shared hash index
+     */
+    static final class Shape {
+        private static final int LINEAR_SEARCH_LIMIT = 8;
+
+        private final String[] keys;
+        private final int hashCode;
+        private final Map<String, Integer> index;
+
+        /**
+         * @param indexed build hash index for many keys, shape used only as lookup key doesn't need it
+         */
+        Shape(String[] keys, boolean indexed) {
+            this.keys = keys;
+            this.hashCode = Arrays.hashCode(keys);
+            if(indexed && keys.length > LINEAR_SEARCH_LIMIT){
+                index = new HashMap<>(keys.length * 2);
+                for(int i = 0; i < keys.length; i++){
+                    index.put(keys[i], i);
+                }
+            } else {
+                index = null;
+            }
+        }
+
+        private int indexOf(Object key) {
+            if(index!=null){
+                Integer position = index.get(key);
+                return position!=null ? position : -1;
+            }
+            for(int i = 0; i < keys.length; i++){
+                if(keys[i]==key || keys[i].equals(key)){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Shape && hashCode==((Shape) other).hashCode && Arrays.equals(keys, ((Shape) other).keys);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import org.w3c.dom.Node;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Produce transformation result with compact immutable maps and lists: values are kept in exactly sized arrays,
+ * key arrays are shared between maps with the same key sequence. Maps iterate in the same order and are equal
+ * to the maps of {@link DomTransformer#transform(Node)} result. Shapes are cached across calls, so documents kept
+ * in memory share them too.
+ */
+public class CompactMapTransformer {
+
+    static final int DEFAULT_MAX_SHAPES = 4096;
+
+    private final DomTransformer domTransformer;
+    private final ConcurrentHashMap<CompactMap.Shape, CompactMap.Shape> shapes = new ConcurrentHashMap<>();
+
+    public CompactMapTransformer(DomTransformer domTransformer) {
+        this.domTransformer = domTransformer;
+    }
+
+    /**
+     * Result set of each element is compacted as soon as the element is complete, nested results are already compact
+     * then, so regular maps and lists are kept only for elements on the path being converted
+     */
+    public Map<String, Object> transform(Node node) {
+        return domTransformer.transform(node, this::compactResultSet);
+    }
+
+    /**
+     * Copy with explicit stack of frames, so depth of map is limited by heap only
+     * @param objectMap result of {@link DomTransformer#transform(Node)} or {@link StaxTransformer}
+     * @return immutable copy of the map
+     */
+    public Map<String, Object> compact(Map<String, Object> objectMap) {
+        Deque<CopyFrame> frames = new ArrayDeque<>();
+        frames.push(new CopyFrame(objectMap));
+        while (true){
+            CopyFrame frame = frames.peek();
+            if(frame.items.hasNext()){
+                Object item = frame.items.next();
+                Object value = frame.keys!=null ? ((Map.Entry<?, ?>) item).getValue() : item;
+                if(frame.keys!=null){
+                    frame.keys[frame.index] = (String) ((Map.Entry<?, ?>) item).getKey();
+                }
+                if(value instanceof Map || value instanceof List){
+                    frames.push(new CopyFrame(value));
+                } else {
+                    frame.values[frame.index++] = value;
+                }
+                continue;
+            }
+            frames.pop();
+            if(frames.isEmpty()){
+                return compactMap(frame.keys, frame.values);
+            }
+            CopyFrame parent = frames.peek();
+            parent.values[parent.index++] = frame.keys!=null ? compactMap(frame.keys, frame.values) :
+                    new CompactList(frame.values);
+        }
+    }
+
+    /**
+     * Lists of repeated nested elements are built by the parent element, their items are already compact
+     */
+    private Map<String, Object> compactResultSet(Map<String, Object> resultSet) {
+        String[] keys = new String[resultSet.size()];
+        Object[] values = new Object[keys.length];
+        int index = 0;
+        for(Map.Entry<String, Object> entry: resultSet.entrySet()){
+            keys[index] = entry.getKey();
+            values[index] = entry.getValue() instanceof List ? new CompactList(((List<?>) entry.getValue()).toArray()) :
+                    entry.getValue();
+            index++;
+        }
+        return compactMap(keys, values);
+    }
+
+    private Map<String, Object> compactMap(String[] keys, Object[] values) {
+        if(keys.length==0){
+            return Collections.emptyMap();
+        }
+        if(keys.length==1){
+            return Collections.singletonMap(keys[0], values[0]);
+        }
+        return new CompactMap(getShape(keys), values);
+    }
+
+    private CompactMap.Shape getShape(String[] keys) {
+        CompactMap.Shape shape = shapes.get(new CompactMap.Shape(keys, false));
+        if(shape==null){
+            shape = new CompactMap.Shape(keys, true);
+            if(shapes.size() >= DEFAULT_MAX_SHAPES){
+                shapes.clear();
+            }
+            CompactMap.Shape previous = shapes.putIfAbsent(shape, shape);
+            if(previous!=null){
+                shape = previous;
+            }
+        }
+        return shape;
+    }
+
+    /**
+     * Map or list being copied, keys are null for list
+     */
+    private static class CopyFrame {
+        private final Iterator<?> items;
+        private final String[] keys;
+        private final Object[] values;
+        private int index;
+
+        private CopyFrame(Object source) {
+            if(source instanceof Map){
+                Map<?, ?> map = (Map<?, ?>) source;
+                items = map.entrySet().iterator();
+                keys = new String[map.size()];
+                values = new Object[map.size()];
+            } else {
+                List<?> list = (List<?>) source;
+                items = list.iterator();
+                keys = null;
+                values = new Object[list.size()];
+            }
+        }
+    }
+}
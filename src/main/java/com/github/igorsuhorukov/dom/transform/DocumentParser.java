@@ -0,0 +1,100 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import com.github.igorsuhorukov.dom.transform.document.PooledDocumentCreator;
+import org.w3c.dom.Document;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+
+/**
+ * Parse XML with builders from shared pool. Factory is looked up once and tuned for conversion: nodes are expanded
+ * eagerly, external DTD is not loaded, comments are dropped and CDATA is merged with text. Result of conversion is
+ * the same as for default parser, except entities declared in external DTD are not expanded.
+ * <p/>
+ * Input may be untrusted, so secure processing is enabled and external general and parameter entities are neither
+ * resolved nor fetched: their references are left out of the result.
+ */
+final class DocumentParser {
+
+    private static final String DEFER_NODE_EXPANSION = "http://apache.org/xml/features/dom/defer-node-expansion";
+    private static final String LOAD_EXTERNAL_DTD = "http://apache.org/xml/features/nonvalidating/load-external-dtd";
+    private static final String EXTERNAL_GENERAL_ENTITIES = "http://xml.org/sax/features/external-general-entities";
+    private static final String EXTERNAL_PARAMETER_ENTITIES = "http://xml.org/sax/features/external-parameter-entities";
+
+    private static final PooledDocumentCreator DOCUMENT_BUILDERS = new PooledDocumentCreator(createDocumentBuilderFactory(),
+            Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * Report fatal errors by exception only, like default handler but without printing to System.err
+     */
+    private static final ErrorHandler ERROR_HANDLER = new ErrorHandler() {
+        @Override
+        public void warning(SAXParseException exception) {
+        }
+
+        @Override
+        public void error(SAXParseException exception) {
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            throw exception;
+        }
+    };
+
+    private DocumentParser() {
+    }
+
+    static Document parse(InputSource inputSource) throws IOException {
+        DocumentBuilder documentBuilder = DOCUMENT_BUILDERS.borrow();
+        try {
+            documentBuilder.setErrorHandler(ERROR_HANDLER);
+            return documentBuilder.parse(inputSource);
+        } catch (SAXException e) {
+            throw new IllegalArgumentException(e);
+        } finally {
+            DOCUMENT_BUILDERS.release(documentBuilder);
+        }
+    }
+
+    private static DocumentBuilderFactory createDocumentBuilderFactory() {
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setIgnoringComments(true);
+        documentBuilderFactory.setCoalescing(true);
+        documentBuilderFactory.setIgnoringElementContentWhitespace(true);
+        setFeature(documentBuilderFactory, DEFER_NODE_EXPANSION, false);
+        setFeature(documentBuilderFactory, LOAD_EXTERNAL_DTD, false);
+        setFeature(documentBuilderFactory, XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        setFeature(documentBuilderFactory, EXTERNAL_GENERAL_ENTITIES, false);
+        setFeature(documentBuilderFactory, EXTERNAL_PARAMETER_ENTITIES, false);
+        setAttribute(documentBuilderFactory, XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        setAttribute(documentBuilderFactory, XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+        return documentBuilderFactory;
+    }
+
+    /**
+     * Features are specific to Xerces based parsers, other implementations are used with their defaults
+     */
+    private static void setFeature(DocumentBuilderFactory documentBuilderFactory, String name, boolean value) {
+        try {
+            documentBuilderFactory.setFeature(name, value);
+        } catch (ParserConfigurationException e) {
+            //not supported
+        }
+    }
+
+    private static void setAttribute(DocumentBuilderFactory documentBuilderFactory, String name, Object value) {
+        try {
+            documentBuilderFactory.setAttribute(name, value);
+        } catch (IllegalArgumentException e) {
+            //not supported
+        }
+    }
+}
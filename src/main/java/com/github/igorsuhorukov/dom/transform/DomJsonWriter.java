@@ -0,0 +1,127 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.w3c.dom.Node;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Writes JSON tokens for DOM node directly into {@link JsonGenerator}. Output is the same as serialization of
+ * {@link DomTransformer#transform(Node)} result but without building intermediate map tree: only direct entries
+ * of the current element are indexed to decide between array, object and single value.
+ * <p/>
+ * Type converter is expected to return map and list values unchanged, as {@link DomTransformer} applies it
+ * to nested element values again.
+ */
+public class DomJsonWriter {
+
+    private final DomTransformer domTransformer;
+
+    public DomJsonWriter(DomTransformer domTransformer) {
+        this.domTransformer = domTransformer;
+    }
+
+    /**
+     * Nested objects and arrays are written with explicit stack of iterators instead of recursion, so depth of
+     * document is limited by heap only
+     */
+    public void write(Node node, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if(DomTransformer.isTextNode(node)){
+            generator.writeFieldName(node.getNodeName());
+            generator.writeObject(domTransformer.getTypeConverter().transform(node.getNodeValue()));
+        } else {
+            generator.writeFieldName(domTransformer.getNameCache().decode(node.getNodeName()));
+            Deque<JsonFrame> frames = new ArrayDeque<>();
+            writeElementValue(node, generator, 0, frames);
+            while (!frames.isEmpty()){
+                JsonFrame frame = frames.peek();
+                if(!frame.items.hasNext()){
+                    frames.pop();
+                    if(frame.array){
+                        generator.writeEndArray();
+                    } else {
+                        generator.writeEndObject();
+                    }
+                    continue;
+                }
+                Object item = frame.items.next();
+                if(frame.array){
+                    writeElementValue((Node) item, generator, 0, frames);
+                } else {
+                    Map.Entry<?, ?> entry = (Map.Entry<?, ?>) item;
+                    generator.writeFieldName((String) entry.getKey());
+                    writeEntryValue(entry.getValue(), generator, 0, frames);
+                }
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write scalar value or start of object with its entries pushed to frames
+     */
+    private void writeElementValue(Node node, JsonGenerator generator, int conversions, Deque<JsonFrame> frames) throws IOException {
+        Map<String, Object> entries = domTransformer.indexElement(node, NestedElement::new, NestedElementGroup::new);
+        if(entries.size()==1 && entries.containsKey(domTransformer.getValueName())){
+            writeEntryValue(entries.values().iterator().next(), generator, conversions, frames);
+        } else if(entries.isEmpty()){
+            generator.writeObject(convert(null, conversions));
+        } else {
+            generator.writeStartObject();
+            frames.push(new JsonFrame(entries.entrySet().iterator(), false));
+        }
+    }
+
+    private void writeEntryValue(Object value, JsonGenerator generator, int conversions, Deque<JsonFrame> frames) throws IOException {
+        if(value instanceof NestedElement){
+            NestedElement nestedElement = (NestedElement) value;
+            writeElementValue(nestedElement.node, generator, conversions + nestedElement.conversions, frames);
+        } else if(value instanceof NestedElementGroup){
+            generator.writeStartArray();
+            frames.push(new JsonFrame(((NestedElementGroup) value).nodes.iterator(), true));
+        } else {
+            generator.writeObject(convert(value, conversions));
+        }
+    }
+
+    private Object convert(Object value, int conversions) {
+        Object result = value;
+        for(int i = 0; i < conversions; i++){
+            result = domTransformer.getTypeConverter().transform(result);
+        }
+        return result;
+    }
+
+    /**
+     * Nodes of JSON array or entries of JSON object being written
+     */
+    private static class JsonFrame {
+        private final Iterator<?> items;
+        private final boolean array;
+
+        private JsonFrame(Iterator<?> items, boolean array) {
+            this.items = items;
+            this.array = array;
+        }
+    }
+
+    private static class NestedElement {
+        private final Node node;
+        private final int conversions;
+
+        private NestedElement(Node node, int conversions) {
+            this.node = node;
+            this.conversions = conversions;
+        }
+    }
+
+    private static class NestedElementGroup {
+        private final List<Node> nodes;
+
+        private NestedElementGroup(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+    }
+}
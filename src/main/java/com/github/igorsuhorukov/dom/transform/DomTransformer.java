@@ -6,16 +6,20 @@ import com.github.igorsuhorukov.dom.transform.converter.AttributeResolver;
 import com.github.igorsuhorukov.dom.transform.converter.TypeConverter;
 import com.github.igorsuhorukov.dom.transform.document.DefaultDocumentCreator;
 import com.github.igorsuhorukov.dom.transform.document.DocumentCreator;
-import org.apache.jackrabbit.util.ISO9075;
 import org.w3c.dom.*;
+import org.xml.sax.InputSource;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
@@ -33,6 +37,9 @@ public class DomTransformer {
     private final AttributeObjectToDom attributeObjectToDom;
     private final String valueName;
     private final DocumentCreator documentCreator;
+    private final NameCache nameCache;
+    private final XmlMapWriter xmlMapWriter = new XmlMapWriter(this);
+    private final TransformationListener listener;
 
     public DomTransformer(TypeConverter typeConverter) {
         this(typeConverter, new DefaultDocumentCreator());
@@ -43,16 +50,37 @@ public class DomTransformer {
                 name -> "@" + name, name -> name.startsWith("@"), name -> name.substring(1), "_val_");
     }
 
+    /**
+     * @param listener receives statistics of each DOM to map transformation, JfrTransformationListener is available
+     *                 on Java 11+
+     */
+    public DomTransformer(TypeConverter typeConverter, DocumentCreator documentCreator, TransformationListener listener) {
+        this(typeConverter, documentCreator,
+                name -> "@" + name, name -> name.startsWith("@"), name -> name.substring(1), "_val_", listener);
+    }
+
     public DomTransformer(TypeConverter typeConverter, DocumentCreator documentCreator,
                           AttributeDomToObject attributeDomToObject,
                           AttributeResolver attributeResolver, AttributeObjectToDom attributeObjectToDom,
                           String valueName) {
+        this(typeConverter, documentCreator, attributeDomToObject, attributeResolver, attributeObjectToDom, valueName, null);
+    }
+
+    /**
+     * @param listener receives statistics of each DOM to map transformation, null to disable instrumentation
+     */
+    public DomTransformer(TypeConverter typeConverter, DocumentCreator documentCreator,
+                          AttributeDomToObject attributeDomToObject,
+                          AttributeResolver attributeResolver, AttributeObjectToDom attributeObjectToDom,
+                          String valueName, TransformationListener listener) {
+        this.listener = listener;
         this.typeConverter = typeConverter;
         this.documentCreator = documentCreator;
         this.attributeDomToObject = attributeDomToObject;
         this.attributeResolver = attributeResolver;
         this.attributeObjectToDom = attributeObjectToDom;
         this.valueName = valueName;
+        this.nameCache = new NameCache(attributeDomToObject, attributeObjectToDom, NameCache.DEFAULT_MAX_SIZE);
     }
 
     public Node transform(Map<String, Object> objectMap){
@@ -63,47 +91,155 @@ public class DomTransformer {
         return transform(xmlDoc, objectMap);
     }
 
-    private Node transform(Document xmlDoc, Map<String, Object> objectMap){
+    /**
+     * Write XML text of {@link #transform(Map)} result without building DOM. Output is the same as serialization
+     * of the transformed node by identity {@link javax.xml.transform.Transformer}: UTF-8 with XML declaration.
+     */
+    public void writeXml(Map<String, Object> objectMap, Writer writer) throws IOException {
+        XmlOutput output = XmlOutput.acquire(writer);
+        try {
+            xmlMapWriter.write(objectMap, output);
+            output.flush();
+        } finally {
+            output.release();
+        }
+    }
+
+    public void writeXml(Map<String, Object> objectMap, OutputStream outputStream) throws IOException {
+        XmlOutput output = XmlOutput.acquire(outputStream);
+        try {
+            xmlMapWriter.write(objectMap, output);
+            output.flush();
+        } finally {
+            output.release();
+        }
+    }
+
+    /**
+     * Build nodes with explicit stack of frames instead of recursion, so depth of map is limited by heap only.
+     * Element is appended to parent when its content is built: DOM checks ancestors of parent on every append.
+     */
+    Node transform(Document xmlDoc, Map<String, Object> objectMap){
+        return transform(xmlDoc, objectMap, null);
+    }
+
+    /**
+     * @param collectionBuilder null to build all collection entries from the stack
+     */
+    Node transform(Document xmlDoc, Map<String, Object> objectMap, CollectionBuilder collectionBuilder){
         if(objectMap.size()!=1){
             throw new IllegalArgumentException();
         }
         String objectName = objectMap.keySet().iterator().next();
         if(attributeResolver.isAttribute(objectName)){
             return createAttribute(xmlDoc, objectMap, objectName);
+        }
+        Element node = createElement(xmlDoc, objectName);
+        Object value = objectMap.get(objectName);
+        BuildStack stack = new BuildStack();
+        if(value instanceof List){
+            stack.push(BuildFrame.LIST, node, null, null, ((List<?>) value).iterator());
         } else {
-            return createNode(xmlDoc, objectMap, objectName);
+            appendValue(xmlDoc, null, node, value, stack);
         }
+        build(xmlDoc, stack, collectionBuilder);
+        return node;
     }
 
-    private Node createNode(Document xmlDoc, Map<String, Object> objectMap, String objectName) {
-        Node node = null;
-        try {
-            node = xmlDoc.createElement(ISO9075.encode(objectName));
-        } catch (DOMException e) {
-            throw new IllegalArgumentException(e);
-        }
-        Object value = objectMap.get(objectName);
-        if(value!=null) {
-            if (value instanceof List) {
-                for(Object item : (List)value){
-                    if(item instanceof Map){
-                        Map<String, Object> element = (Map<String, Object>) item;
-                        transformMap(xmlDoc, node, element);
-                    } else {
-                        node.appendChild(xmlDoc.createTextNode(item.toString()));
-                    }
+    /**
+     * Append node of collection item to node, the same as items of collection entry are appended
+     * @param collectionBuilder null to build all nested collection entries from the stack
+     */
+    void appendCollectionItem(Document xmlDoc, Node node, String key, Object item, CollectionBuilder collectionBuilder) {
+        BuildStack stack = new BuildStack();
+        appendCollectionItem(xmlDoc, node, key, item, stack);
+        build(xmlDoc, stack, collectionBuilder);
+    }
+
+    private void build(Document xmlDoc, BuildStack stack, CollectionBuilder collectionBuilder) {
+        while (!stack.isEmpty()){
+            BuildFrame frame = stack.peek();
+            if(!frame.items.hasNext()){
+                Node parent = frame.parent;
+                Node completed = frame.node;
+                stack.pop();
+                if(parent!=null){
+                    parent.appendChild(completed);
+                }
+                continue;
+            }
+            Object item = frame.items.next();
+            if(frame.kind==BuildFrame.LIST){
+                if(item instanceof Map){
+                    stack.push(BuildFrame.MAP, frame.node, null, null, ((Map<?, ?>) item).entrySet().iterator());
+                } else {
+                    frame.node.appendChild(xmlDoc.createTextNode(item.toString()));
                 }
-            } else if (value instanceof Map) {
-                transformMap(xmlDoc, node, (Map<String, Object>) value);
+            } else if(frame.kind==BuildFrame.COLLECTION){
+                appendCollectionItem(xmlDoc, frame.node, frame.key, item, stack);
             } else {
-                node.appendChild(xmlDoc.createTextNode(value.toString()));
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) item;
+                appendEntry(xmlDoc, frame.node, (String) entry.getKey(), entry.getValue(), stack, collectionBuilder);
             }
         }
-        return node;
     }
 
-    private Node createAttribute(Document xmlDoc, Map<String, Object> objectMap, String objectName) {
-        Attr attribute = xmlDoc.createAttribute(ISO9075.encode(attributeObjectToDom.getName(objectName)));
+    private void appendEntry(Document xmlDoc, Node node, String key, Object value, BuildStack stack,
+                             CollectionBuilder collectionBuilder) {
+        if(value instanceof Collection){
+            if(collectionBuilder==null || !collectionBuilder.build(xmlDoc, node, key, (Collection<?>) value)){
+                stack.push(BuildFrame.COLLECTION, node, null, key, ((Collection<?>) value).iterator());
+            }
+        } else if(valueName.equals(key)){
+            node.appendChild(xmlDoc.createTextNode(value.toString()));
+        } else if(attributeResolver.isAttribute(key)){
+            node.getAttributes().setNamedItem(createAttribute(xmlDoc, Collections.singletonMap(key, value), key));
+        } else {
+            appendValue(xmlDoc, node, createElement(xmlDoc, key), value, stack);
+        }
+    }
+
+    private void appendCollectionItem(Document xmlDoc, Node node, String key, Object item, BuildStack stack) {
+        if(item instanceof Map){
+            if(attributeResolver.isAttribute(key)){
+                node.appendChild(createAttribute(xmlDoc, Collections.singletonMap(key, item), key));
+            } else {
+                appendValue(xmlDoc, node, createElement(xmlDoc, key), item, stack);
+            }
+        } else if(item!=null){
+            Element element = xmlDoc.createElement(nameCache.encode(key));
+            element.appendChild(xmlDoc.createTextNode(item.toString()));
+            node.appendChild(element);
+        }
+    }
+
+    /**
+     * Map content is built from the stack, then element is appended to parent
+     * @param parent null when element is the root
+     */
+    private static void appendValue(Document xmlDoc, Node parent, Element element, Object value, BuildStack stack) {
+        if(value instanceof Map){
+            stack.push(BuildFrame.MAP, element, parent, null, ((Map<?, ?>) value).entrySet().iterator());
+            return;
+        }
+        if(value!=null){
+            element.appendChild(xmlDoc.createTextNode(value.toString()));
+        }
+        if(parent!=null){
+            parent.appendChild(element);
+        }
+    }
+
+    Element createElement(Document xmlDoc, String objectName) {
+        try {
+            return xmlDoc.createElement(nameCache.encode(objectName));
+        } catch (DOMException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    Node createAttribute(Document xmlDoc, Map<String, Object> objectMap, String objectName) {
+        Attr attribute = xmlDoc.createAttribute(nameCache.encodeAttribute(objectName));
         Object value = objectMap.get(objectName);
         if(value instanceof Map || value instanceof Collection) {
             throw new IllegalArgumentException("invalid attribute "+objectName+" content: "+value.toString());
@@ -112,137 +248,575 @@ public class DomTransformer {
         return attribute;
     }
 
-    private void transformMap(Document xmlDoc, Node node, Map<String, Object> value) {
-        Map<String, Object> values = value;
-        for(Map.Entry<String, Object> entry: values.entrySet()){
-            if(entry.getValue() instanceof Collection){
-                transformJsonCollection(xmlDoc, node, entry);
-            } else {
-                Node transform = transform(xmlDoc, Collections.singletonMap(entry.getKey(), entry.getValue()));
-                if (valueName.equals(entry.getKey())) {
-                    node.appendChild(xmlDoc.createTextNode(entry.getValue().toString()));
-                } else if (attributeResolver.isAttribute(entry.getKey())) {
-                    node.getAttributes().setNamedItem(transform);
-                } else {
-                    node.appendChild(transform);
-                }
-            }
+    /**
+     * Parse XML with shared pool of tuned parsers, see {@link DocumentParser}, and transform document element
+     */
+    public Map<String, Object> transform(InputStream inputStream) throws IOException {
+        TransformationStatistics statistics = startStatistics();
+        Document document = DocumentParser.parse(new InputSource(inputStream));
+        return transform(document.getDocumentElement(), parsed(statistics));
+    }
+
+    public Map<String, Object> transform(byte[] xml) {
+        try {
+            return transform(new ByteArrayInputStream(xml));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    private void transformJsonCollection(Document xmlDoc, Node node, Map.Entry<String, Object> entry) {
-        for(Object item: (Collection) entry.getValue()) {
-            if(item!=null && item instanceof Map){
-                node.appendChild(transform(xmlDoc, Collections.singletonMap(entry.getKey(),item)));
-            } else if(item!=null){
-                Element element = xmlDoc.createElement(ISO9075.encode(entry.getKey()));
-                element.appendChild(xmlDoc.createTextNode(item.toString()));
-                node.appendChild(element);
-            }
+    public Map<String, Object> transform(Path path) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(path)){
+            InputSource inputSource = new InputSource(inputStream);
+            inputSource.setSystemId(path.toUri().toString());
+            TransformationStatistics statistics = startStatistics();
+            Document document = DocumentParser.parse(inputSource);
+            return transform(document.getDocumentElement(), parsed(statistics));
         }
     }
 
+    /**
+     * Transform with explicit stack of frames instead of recursion, so depth of document is limited by heap only.
+     * Nested nodes are iterated by siblings, as indexed access to child node list is not constant time in Xerces.
+     */
     public Map<String, Object> transform(Node currentNode){
-        String nodeName = currentNode.getNodeName();
+        return transform(currentNode, startStatistics());
+    }
+
+    /**
+     * @return null when listener is not set or disabled
+     */
+    private TransformationStatistics startStatistics() {
+        return listener!=null && listener.isEnabled() ? new TransformationStatistics() : null;
+    }
+
+    private static TransformationStatistics parsed(TransformationStatistics statistics) {
+        if(statistics!=null){
+            statistics.parsed();
+        }
+        return statistics;
+    }
+
+    /**
+     * @param statistics null to transform without instrumentation
+     */
+    private Map<String, Object> transform(Node currentNode, TransformationStatistics statistics){
+        Map<String, Object> result = transform(currentNode, statistics, 1, null);
+        report(statistics);
+        return result;
+    }
+
+    /**
+     * Transform with result set of each element replaced by finisher when the element is complete, so nested results
+     * are finished before parent result set is built
+     */
+    Map<String, Object> transform(Node currentNode, UnaryOperator<Map<String, Object>> finisher){
+        TransformationStatistics statistics = startStatistics();
+        Map<String, Object> result = transform(currentNode, statistics, 1, finisher);
+        report(statistics);
+        return result;
+    }
 
-        if(TEXT_ELEMENT.equals(nodeName) || CDATA_SECTION.equals(nodeName)){
-            return Collections.singletonMap(nodeName, typeConverter.transform(currentNode.getNodeValue()));
+    private void report(TransformationStatistics statistics) {
+        if(statistics!=null){
+            statistics.finish();
+            listener.transformed(statistics);
         }
+    }
+
+    /**
+     * Transform node nested into result of other transformer, statistics are not reported
+     */
+    Map<String, Object> transformNested(Node node){
+        return transform(node, null, 1, null);
+    }
 
-        Map<String, Object> nodesResultSet = new LinkedHashMap<>();
+    /**
+     * @param depth depth of node in the reported transformation
+     * @param finisher null to keep result sets as is
+     */
+    private Map<String, Object> transform(Node currentNode, TransformationStatistics statistics, int depth,
+                                          UnaryOperator<Map<String, Object>> finisher){
+        TypeConverter converter = statistics!=null ? statistics.timed(typeConverter) : typeConverter;
+        if(isTextNode(currentNode)){
+            if(statistics!=null){
+                statistics.addText(currentNode.getNodeValue());
+            }
+            return Collections.singletonMap(currentNode.getNodeName(), converter.transform(currentNode.getNodeValue()));
+        }
+        return transformElement(currentNode, converter, statistics, depth, finisher);
+    }
 
-        processAttributes(currentNode, nodesResultSet);
-        processTextContent(nodesResultSet, currentNode.getChildNodes());
-        processNestedElements(currentNode, nodesResultSet);
+    private Map<String, Object> transformElement(Node currentNode, TypeConverter converter,
+                                                 TransformationStatistics statistics, int depth,
+                                                 UnaryOperator<Map<String, Object>> finisher) {
+        ElementStack stack = new ElementStack();
+        stack.push(currentNode, this, converter);
+        if(statistics!=null){
+            statistics.addElement(currentNode, depth);
+        }
+        while (true){
+            ElementFrame frame = stack.peek();
+            Node child = frame.nextChild();
+            if(child!=null){
+                if(isTextNode(child)){
+                    frame.appendText(child.getNodeValue());
+                    if(statistics!=null){
+                        statistics.addText(child.getNodeValue());
+                    }
+                } else if(isNestedNode(child)){
+                    stack.push(child, this, converter);
+                    if(statistics!=null){
+                        statistics.addElement(child, depth - 1 + stack.size);
+                    }
+                }
+                continue;
+            }
+            processTextContent(frame.nodesResultSet, frame.getText(), converter);
+            if(statistics!=null){
+                long start = System.nanoTime();
+                processNestedElements(frame.nodesResultSet, frame.nestedElements, converter);
+                statistics.addNestedElementsTime(System.nanoTime() - start);
+            } else {
+                processNestedElements(frame.nodesResultSet, frame.nestedElements, converter);
+            }
+            Map<String, Object> result = createResult(frame.node.getNodeName(),
+                    finisher!=null ? finisher.apply(frame.nodesResultSet) : frame.nodesResultSet);
+            stack.pop();
+            if(stack.isEmpty()){
+                return result;
+            }
+            stack.peek().nestedElements.add(result);
+        }
+    }
 
+    /**
+     * Transform only nodes selected by projection, elements which can't contain selected nodes are not visited.
+     * Elements on the way to selected nodes are kept in explicit stack, as in {@link #transform(Node)}.
+     * Statistics of selected subtrees and elements on the way to them are reported once per call.
+     * @return empty map when nothing is selected
+     */
+    public Map<String, Object> transform(Node currentNode, Projection projection){
+        Projection.Match match = projection.start().child(currentNode.getNodeName());
+        if(match.isSelected()){
+            return transform(currentNode);
+        }
+        TransformationStatistics statistics = startStatistics();
+        if(statistics!=null){
+            statistics.addElement(currentNode, 1);
+        }
+        Deque<ProjectionFrame> frames = new ArrayDeque<>();
+        frames.push(new ProjectionFrame(currentNode, match, this));
+        while (true){
+            ProjectionFrame frame = frames.peek();
+            Node child = frame.nextChild();
+            if(child!=null){
+                if(isNestedNode(child)){
+                    Projection.Match childMatch = frame.match.child(child.getNodeName());
+                    if(childMatch.isSelected()){
+                        frame.nestedElements.add(transform(child, statistics, frames.size() + 1, null));
+                    } else if(!childMatch.isEmpty()){
+                        frames.push(new ProjectionFrame(child, childMatch, this));
+                        if(statistics!=null){
+                            statistics.addElement(child, frames.size());
+                        }
+                    }
+                }
+                continue;
+            }
+            frames.pop();
+            processNestedElements(frame.nodesResultSet, frame.nestedElements);
+            Map<String, Object> result = frame.nodesResultSet.isEmpty() ? null :
+                    createResult(frame.node.getNodeName(), frame.nodesResultSet);
+            if(frames.isEmpty()){
+                report(statistics);
+                return result!=null ? result : Collections.emptyMap();
+            }
+            if(result!=null){
+                frames.peek().nestedElements.add(result);
+            }
+        }
+    }
+
+    Map<String, Object> createResult(String nodeName, Map<String, Object> nodesResultSet) {
         if(nodesResultSet.size()==1 && nodesResultSet.containsKey(valueName)){
-            return Collections.singletonMap(ISO9075.decode(nodeName), nodesResultSet.values().iterator().next());
+            return Collections.singletonMap(nameCache.decode(nodeName), nodesResultSet.values().iterator().next());
         }
         if(nodesResultSet.size()==0){
-            return Collections.singletonMap(ISO9075.decode(nodeName), null);
+            return Collections.singletonMap(nameCache.decode(nodeName), null);
         }
-        return Collections.singletonMap(ISO9075.decode(nodeName), nodesResultSet);
+        return Collections.singletonMap(nameCache.decode(nodeName), nodesResultSet);
+    }
+
+    void processNestedElements(Map<String, Object> resultNodes, List<Map<String, Object>> nestedElements) {
+        processNestedElements(resultNodes, nestedElements, typeConverter);
     }
 
-    private void processNestedElements(Node currentNode, Map<String, Object> resultNodes) {
-        List<Map<String, Object>> nestedElements = getNestedElement(currentNode.getChildNodes());
+    private void processNestedElements(Map<String, Object> resultNodes, List<Map<String, Object>> nestedElements,
+                                       TypeConverter typeConverter) {
         if(!nestedElements.isEmpty()){
-            if(allNodeSimple(nestedElements) && allNodeNamesAreUnique(nestedElements)){
-                resultNodes.putAll(getNestedElementsAsMap(nestedElements));
+            List<Map.Entry<String, Object>> nestedEntries = new ArrayList<>(nestedElements.size());
+            boolean allNodeSimple = true;
+            for(Map<String, Object> nestedElement: nestedElements){
+                allNodeSimple &= nestedElement.size()==1;
+                nestedEntries.addAll(nestedElement.entrySet());
+            }
+            SiblingGroups<Map.Entry<String, Object>> siblingGroups = new SiblingGroups<>(nestedEntries, Map.Entry::getKey);
+            if(allNodeSimple && siblingGroups.allNamesAreUnique()){
+                nestedEntries.forEach(entry -> resultNodes.put(nameCache.decode(entry.getKey()),
+                        typeConverter.transform(entry.getValue())));
+            } else {
+                for(SiblingGroups.Group<Map.Entry<String, Object>> group: siblingGroups.repeatedGroups()){
+                    List<Object> values = new ArrayList<>(group.getItems().size());
+                    group.getItems().forEach(entry -> values.add(entry.getValue()));
+                    resultNodes.put(nameCache.decode(group.getName()), values);
+                }
+                for(SiblingGroups.Group<Map.Entry<String, Object>> group: siblingGroups.uniqueGroups()){
+                    resultNodes.put(nameCache.decode(group.getName()), group.getFirst().getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Entries of element in the same order and with the same keys as {@link #transform(Node)} puts them into
+     * result map. Nested elements are not converted, they are referenced by objects of the factories: single element
+     * with the number of type conversions applied to its value and group of repeated elements.
+     */
+    Map<String, Object> indexElement(Node node, BiFunction<Node, Integer, Object> nestedElementFactory,
+                                     Function<List<Node>, Object> nestedGroupFactory) {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        processAttributes(node, entries, typeConverter);
+        processTextContent(entries, extractElementInternalContent(node));
+
+        List<Node> nestedNodes = new ArrayList<>();
+        for(Node child = node.getFirstChild(); child!=null; child = child.getNextSibling()){
+            if(isNestedNode(child)){
+                nestedNodes.add(child);
+            }
+        }
+        if(!nestedNodes.isEmpty()){
+            //keys are decoded twice, as in transform(Node): nested result key is decoded name, parent decodes it again
+            SiblingGroups<Node> siblingGroups = new SiblingGroups<>(nestedNodes, nestedNode -> nameCache.decode(nestedNode.getNodeName()));
+            if(siblingGroups.allNamesAreUnique()){
+                for(Node nestedNode: nestedNodes){
+                    String nestedKey = nameCache.decode(nestedNode.getNodeName());
+                    entries.put(nameCache.decode(nestedKey), nestedElementFactory.apply(nestedNode, 1));
+                }
             } else {
-                Map<String, Long> keyCountFreq = getKeyCountFreq(nestedElements);
-                Set<String> uniqueKeys = getUniqueKeys(keyCountFreq);
-                keyCountFreq.entrySet().stream().filter(entry-> entry.getValue()>1).map(Map.Entry::getKey).
-                        forEach(fieldName -> resultNodes.put(ISO9075.decode(fieldName),
-                                nestedElements.stream().map(Map::entrySet).
-                                        flatMap(Collection::stream).filter(entry -> fieldName.equals(entry.getKey())).
-                                        map(Map.Entry::getValue).collect(Collectors.toList())));
-                extractUniqueNameElements(resultNodes, nestedElements, uniqueKeys);
+                for(SiblingGroups.Group<Node> group: siblingGroups.repeatedGroups()){
+                    entries.put(nameCache.decode(group.getName()), nestedGroupFactory.apply(group.getItems()));
+                }
+                for(SiblingGroups.Group<Node> group: siblingGroups.uniqueGroups()){
+                    entries.put(nameCache.decode(group.getName()), nestedElementFactory.apply(group.getFirst(), 0));
+                }
             }
         }
+        return entries;
     }
 
-    private void processAttributes(Node currentNode, Map<String, Object> resultNodes) {
+    private void processAttributes(Node currentNode, Map<String, Object> resultNodes, TypeConverter typeConverter) {
         NamedNodeMap attributes = currentNode.getAttributes();
         if(attributes!=null && attributes.getLength()>0){
-            resultNodes.putAll(transformAttributes(attributes));
+            resultNodes.putAll(transformAttributes(attributes, typeConverter));
         }
     }
 
-    private void processTextContent(Map<String, Object> resultNodes, NodeList nestedNodes) {
-        String textContent = extractElementInternalContent(nestedNodes);
+    TypeConverter getTypeConverter() {
+        return typeConverter;
+    }
+
+    String getValueName() {
+        return valueName;
+    }
+
+    AttributeResolver getAttributeResolver() {
+        return attributeResolver;
+    }
+
+    DocumentCreator getDocumentCreator() {
+        return documentCreator;
+    }
+
+    AttributeObjectToDom getAttributeObjectToDom() {
+        return attributeObjectToDom;
+    }
+
+    NameCache getNameCache() {
+        return nameCache;
+    }
+
+    void processTextContent(Map<String, Object> resultNodes, String textContent) {
+        processTextContent(resultNodes, textContent, typeConverter);
+    }
+
+    private void processTextContent(Map<String, Object> resultNodes, String textContent, TypeConverter typeConverter) {
         if(textContent!=null && !textContent.isEmpty() && !WHITESPACE.matcher(textContent).matches()){
             resultNodes.put(valueName, typeConverter.transform(textContent.trim()));
         }
     }
 
-    private Map<String, Object> getNestedElementsAsMap(List<Map<String, Object>> nestedNodes) {
-        Map<String, Object> resultNodeMap = new LinkedHashMap<>();
-        nestedNodes.stream().map(Map::entrySet).flatMap(Collection::stream).forEach(answer -> resultNodeMap.put(ISO9075.decode(answer.getKey()),
-                typeConverter.transform(answer.getValue())));
-        return resultNodeMap;
+    static boolean isTextNode(Node node) {
+        return TEXT_ELEMENT.equals(node.getNodeName()) || CDATA_SECTION.equals(node.getNodeName());
+    }
+
+    static boolean isNestedNode(Node node) {
+        return !isTextNode(node) && !COMMENT.equals(node.getNodeName());
     }
 
-    private Set<String> getUniqueKeys(Map<String, Long> keyCount) {
-        return keyCount.entrySet().stream().filter(entry -> entry.getValue() == 1L).map(Map.Entry::getKey).collect(Collectors.toSet());
+    /**
+     * Walk subtree by parent and sibling links, without recursion
+     * @return true if nested nodes are nested deeper than maxDepth, node itself has depth 1
+     */
+    static boolean isDeeperThan(Node node, int maxDepth) {
+        int depth = 1;
+        Node current = node;
+        while (true){
+            Node child = current.getFirstChild();
+            if(child!=null){
+                current = child;
+                depth++;
+            } else {
+                while (current!=node && current.getNextSibling()==null){
+                    current = current.getParentNode();
+                    depth--;
+                }
+                if(current==node){
+                    return false;
+                }
+                current = current.getNextSibling();
+            }
+            if(depth > maxDepth && isNestedNode(current)){
+                return true;
+            }
+        }
     }
 
-    private Map<String, Long> getKeyCountFreq(List<Map<String, Object>> nestedNodes) {
-        return nestedNodes.stream().map(Map::keySet).flatMap(Collection::stream).collect(
-                Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    static String extractElementInternalContent(Node node) {
+        String text = joinText(node);
+        return text!=null ? text : "";
     }
 
-    private void extractUniqueNameElements(Map<String, Object> resultNodes, List<Map<String, Object>> nestedNodes, Set<String> uniqueKeys) {
-        nestedNodes.stream().map(Map::entrySet).flatMap(Collection::stream).
-                filter(entry -> uniqueKeys.contains(entry.getKey())).
-                forEach(entry -> resultNodes.put(ISO9075.decode(entry.getKey()), entry.getValue()));
+    /**
+     * @return joined text and CDATA nodes of element, null when there are none. Single text node is not copied.
+     */
+    static String joinText(Node node) {
+        String text = null;
+        StringBuilder textContent = null;
+        for(Node child = node.getFirstChild(); child!=null; child = child.getNextSibling()){
+            if(isTextNode(child)){
+                if(text==null){
+                    text = child.getNodeValue();
+                } else {
+                    if(textContent==null){
+                        textContent = new StringBuilder(text);
+                    }
+                    textContent.append(child.getNodeValue());
+                }
+            }
+        }
+        return textContent!=null ? textContent.toString() : text;
     }
 
-    private List<Map<String, Object>> getNestedElement(NodeList nestedNodes) {
-        return IntStream.range(0, nestedNodes.getLength()).mapToObj(nestedNodes::item).
-                filter(node -> !TEXT_ELEMENT.equals(node.getNodeName()) &&
-                        !COMMENT.equals(node.getNodeName())&& !CDATA_SECTION.equals(node.getNodeName())).
-                map(this::transform).collect(Collectors.toList());
+    /**
+     * Same characters as \s of {@link Pattern}, empty text is whitespace too
+     */
+    static boolean isWhitespace(String text) {
+        for(int i = 0; i < text.length(); i++){
+            char symbol = text.charAt(i);
+            if(symbol!=' ' && symbol!='\t' && symbol!='\n' && symbol!='\u000B' && symbol!='\f' && symbol!='\r'){
+                return false;
+            }
+        }
+        return true;
     }
 
-    private String extractElementInternalContent(NodeList nestedNodes) {
-        return IntStream.range(0, nestedNodes.getLength()).mapToObj(nestedNodes::item).
-                filter(node -> TEXT_ELEMENT.equals(node.getNodeName()) || CDATA_SECTION.equals(node.getNodeName())).
-                map(Node::getNodeValue).collect(Collectors.joining());
+    private Map<String, Object> transformAttributes(NamedNodeMap attributes, TypeConverter typeConverter) {
+        Map<String, Object> attributeMap = new HashMap<>();
+        IntStream.range(0, attributes.getLength()).mapToObj(attributes::item).
+                forEach(node -> putAttribute(attributeMap, node.getNodeName(), node.getNodeValue(), typeConverter));
+        return attributeMap;
     }
 
-    private Map<String, Object> transformAttributes(NamedNodeMap attributes) {
-        return IntStream.range(0, attributes.getLength()).mapToObj(attributes::item).
-                map(node -> new AbstractMap.SimpleImmutableEntry<>(ISO9075.decode(attributeDomToObject.getName(node.getNodeName())),
-                        typeConverter.transform(node.getNodeValue()))).
-                collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    void putAttribute(Map<String, Object> attributeMap, String attributeName, String attributeValue) {
+        putAttribute(attributeMap, attributeName, attributeValue, typeConverter);
     }
 
-    private boolean allNodeNamesAreUnique(List<Map<String, Object>> nestedNodes) {
-        return nestedNodes.stream().map(Map::keySet).flatMap(Collection::stream).distinct().count() == nestedNodes.size();
+    private void putAttribute(Map<String, Object> attributeMap, String attributeName, String attributeValue,
+                              TypeConverter typeConverter) {
+        String name = nameCache.decodeAttribute(attributeName);
+        attributeMap.merge(name, typeConverter.transform(attributeValue), (previous, value) -> {
+            throw new IllegalStateException(String.format("Duplicate key %s", previous));
+        });
     }
 
-    private boolean allNodeSimple(List<Map<String, Object>> nestedNodes) {
-        return nestedNodes.stream().map(Map::size).allMatch(item->item==1);
+    /**
+     * Element being transformed: result map with attributes, joined text, results of nested nodes and child cursor
+     */
+    private static class ElementFrame {
+        private final StringBuilder text = new StringBuilder();
+        private final List<Map<String, Object>> nestedElements = new ArrayList<>();
+        private Node node;
+        private Node child;
+        private boolean started;
+        private Map<String, Object> nodesResultSet;
+
+        private void reset(Node node, DomTransformer domTransformer, TypeConverter typeConverter) {
+            this.node = node;
+            this.child = null;
+            this.started = false;
+            this.nodesResultSet = new LinkedHashMap<>();
+            text.setLength(0);
+            domTransformer.processAttributes(node, nodesResultSet, typeConverter);
+        }
+
+        private Node nextChild() {
+            child = started ? child.getNextSibling() : node.getFirstChild();
+            started = true;
+            return child;
+        }
+
+        private void appendText(String value) {
+            text.append(value);
+        }
+
+        private String getText() {
+            return text.toString();
+        }
+
+        private void clear() {
+            node = null;
+            child = null;
+            nodesResultSet = null;
+            nestedElements.clear();
+        }
+    }
+
+    /**
+     * Element on the way to selected nodes: selected attributes, results of nested nodes and child cursor
+     */
+    private static class ProjectionFrame {
+        private final Node node;
+        private final Projection.Match match;
+        private final Map<String, Object> nodesResultSet = new LinkedHashMap<>();
+        private final List<Map<String, Object>> nestedElements = new ArrayList<>();
+        private Node child;
+        private boolean started;
+
+        private ProjectionFrame(Node node, Projection.Match match, DomTransformer domTransformer) {
+            this.node = node;
+            this.match = match;
+            NamedNodeMap attributes = node.getAttributes();
+            if(match.hasAttributes() && attributes!=null){
+                Map<String, Object> attributeMap = new HashMap<>();
+                for(int i = 0; i < attributes.getLength(); i++){
+                    Node attribute = attributes.item(i);
+                    if(match.isAttributeSelected(attribute.getNodeName())){
+                        domTransformer.putAttribute(attributeMap, attribute.getNodeName(), attribute.getNodeValue());
+                    }
+                }
+                nodesResultSet.putAll(attributeMap);
+            }
+        }
+
+        private Node nextChild() {
+            child = started ? child.getNextSibling() : node.getFirstChild();
+            started = true;
+            return child;
+        }
+    }
+
+    /**
+     * Stack of element frames, frame objects with their buffers are reused for the next element on the same depth
+     */
+    private static class ElementStack {
+        private ElementFrame[] frames = new ElementFrame[16];
+        private int size;
+
+        private void push(Node node, DomTransformer domTransformer, TypeConverter typeConverter) {
+            if(size==frames.length){
+                frames = Arrays.copyOf(frames, size * 2);
+            }
+            if(frames[size]==null){
+                frames[size] = new ElementFrame();
+            }
+            frames[size++].reset(node, domTransformer, typeConverter);
+        }
+
+        private ElementFrame peek() {
+            return frames[size - 1];
+        }
+
+        private void pop() {
+            frames[--size].clear();
+        }
+
+        private boolean isEmpty() {
+            return size==0;
+        }
+    }
+
+    /**
+     * Builds nodes of collection entry in place of the stack, e.g. in parallel
+     */
+    interface CollectionBuilder {
+        /**
+         * @return false to build items from the stack
+         */
+        boolean build(Document xmlDoc, Node node, String key, Collection<?> items);
+    }
+
+    /**
+     * Node being built with iterator over map entries, collection items of map entry or list items of root value.
+     * Parent is set for element which is not appended yet.
+     */
+    private static class BuildFrame {
+        private static final int MAP = 0;
+        private static final int COLLECTION = 1;
+        private static final int LIST = 2;
+
+        private int kind;
+        private Node node;
+        private Node parent;
+        private String key;
+        private Iterator<?> items;
+    }
+
+    private static class BuildStack {
+        private BuildFrame[] frames = new BuildFrame[16];
+        private int size;
+
+        private void push(int kind, Node node, Node parent, String key, Iterator<?> items) {
+            if(size==frames.length){
+                frames = Arrays.copyOf(frames, size * 2);
+            }
+            BuildFrame frame = frames[size];
+            if(frame==null){
+                frame = new BuildFrame();
+                frames[size] = frame;
+            }
+            frame.kind = kind;
+            frame.node = node;
+            frame.parent = parent;
+            frame.key = key;
+            frame.items = items;
+            size++;
+        }
+
+        private BuildFrame peek() {
+            return frames[size - 1];
+        }
+
+        private void pop() {
+            BuildFrame frame = frames[--size];
+            frame.node = null;
+            frame.parent = null;
+            frame.key = null;
+            frame.items = null;
+        }
+
+        private boolean isEmpty() {
+            return size==0;
+        }
     }
 }
@@ -0,0 +1,353 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Streaming counterpart of {@link DomTransformer#transform(Map)}: reads JSON tokens from {@link JsonParser} and
+ * writes XML events into {@link XMLStreamWriter} without intermediate map or DOM document.
+ * <p/>
+ * Element attributes are written on element start, so attribute fields of JSON object must precede its content
+ * fields, as in {@link DomTransformer#transform(org.w3c.dom.Node)} result. When value of the root field is array,
+ * attribute fields of its object items must precede the first text item and the first content field of any item.
+ * {@link DomTransformer#transform(Map)} accepts attributes at any position, here attribute after element content
+ * fails with {@link IllegalArgumentException}. Namespace declarations are written first, other attributes are
+ * ordered by name, like in {@link DomTransformer#writeXml(Map, Writer)}.
+ * <p/>
+ * XML text for {@link Writer} is escaped the same way as by {@link DomTransformer#writeXml(Map, Writer)}: tab and line
+ * breaks in attribute values are written as character references, so they are not normalized to spaces on parsing.
+ * {@link XMLStreamWriter} escapes values by its own rules.
+ */
+public class JsonStreamTransformer {
+
+    private final DomTransformer domTransformer;
+
+    /**
+     * @param domTransformer source of conversion rules: attribute resolver and naming, value name
+     */
+    public JsonStreamTransformer(DomTransformer domTransformer) {
+        this.domTransformer = domTransformer;
+    }
+
+    /**
+     * Write XML document with declaration
+     */
+    public void transform(JsonParser parser, Writer writer) throws IOException, XMLStreamException {
+        XmlOutput output = XmlOutput.acquire(writer);
+        try {
+            output.append(XmlMapWriter.XML_DECLARATION);
+            transform(parser, new OutputSink(output));
+            output.flush();
+        } finally {
+            output.release();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Transform JSON object with single field at the current parser position into XML element. Nested objects and
+     * arrays are read with explicit stack of frames instead of recursion, so depth of JSON is limited by heap only.
+     */
+    public void transform(JsonParser parser, XMLStreamWriter writer) throws IOException, XMLStreamException {
+        transform(parser, new StreamWriterSink(writer));
+    }
+
+    private void transform(JsonParser parser, XmlSink writer) throws IOException, XMLStreamException {
+        JsonToken token = parser.currentToken()==null ? parser.nextToken() : parser.currentToken();
+        if(token!=JsonToken.START_OBJECT || parser.nextToken()!=JsonToken.FIELD_NAME){
+            throw new IllegalArgumentException("map size must be 1");
+        }
+        String objectName = parser.getCurrentName();
+        if(domTransformer.getAttributeResolver().isAttribute(objectName)){
+            throw new IllegalArgumentException("attribute "+objectName+" can't be transformed to XML document");
+        }
+        Deque<ContentFrame> frames = new ArrayDeque<>();
+        JsonToken valueToken = parser.nextToken();
+        if(valueToken==JsonToken.START_ARRAY){
+            ElementWriter element = new ElementWriter(writer, domTransformer.getNameCache().encode(objectName));
+            frames.push(new ContentFrame(ContentFrame.LIST, element, objectName));
+        } else {
+            startElement(parser, writer, objectName, valueToken, frames);
+        }
+        while (!frames.isEmpty()){
+            ContentFrame frame = frames.peek();
+            if(frame.kind==ContentFrame.OBJECT || frame.kind==ContentFrame.LIST_OBJECT){
+                readObjectField(parser, frame, frames);
+            } else if(frame.kind==ContentFrame.COLLECTION){
+                readCollectionItem(parser, frame, frames);
+            } else {
+                readListItem(parser, frame, frames);
+            }
+        }
+        if(parser.nextToken()!=JsonToken.END_OBJECT){
+            throw new IllegalArgumentException("map size must be 1");
+        }
+    }
+
+    /**
+     * Write element with scalar value or push frame of its object content
+     */
+    private void startElement(JsonParser parser, XmlSink writer, String objectName, JsonToken valueToken,
+                              Deque<ContentFrame> frames) throws IOException, XMLStreamException {
+        ElementWriter element = new ElementWriter(writer, domTransformer.getNameCache().encode(objectName));
+        if(valueToken==JsonToken.START_OBJECT){
+            frames.push(new ContentFrame(ContentFrame.OBJECT, element, null));
+            return;
+        }
+        if(valueToken!=JsonToken.VALUE_NULL){
+            element.writeText(getText(parser, valueToken, objectName));
+        }
+        element.writeEnd();
+    }
+
+    /**
+     * Items of root array: objects are merged into the root element content
+     */
+    private void readListItem(JsonParser parser, ContentFrame frame, Deque<ContentFrame> frames) throws IOException, XMLStreamException {
+        JsonToken valueToken = parser.nextToken();
+        if(valueToken==JsonToken.END_ARRAY){
+            frames.pop();
+            frame.element.writeEnd();
+        } else if(valueToken==JsonToken.START_OBJECT){
+            frames.push(new ContentFrame(ContentFrame.LIST_OBJECT, frame.element, null));
+        } else {
+            frame.element.writeText(getText(parser, valueToken, frame.name));
+        }
+    }
+
+    private void readObjectField(JsonParser parser, ContentFrame frame, Deque<ContentFrame> frames) throws IOException, XMLStreamException {
+        ElementWriter element = frame.element;
+        if(parser.nextToken()!=JsonToken.FIELD_NAME){
+            frames.pop();
+            if(frame.kind==ContentFrame.OBJECT){
+                element.writeEnd();
+            }
+            return;
+        }
+        String fieldName = parser.getCurrentName();
+        JsonToken valueToken = parser.nextToken();
+        if(valueToken==JsonToken.START_ARRAY){
+            frames.push(new ContentFrame(ContentFrame.COLLECTION, element, fieldName));
+        } else if(domTransformer.getValueName().equals(fieldName)){
+            element.writeText(getText(parser, valueToken, fieldName));
+        } else if(domTransformer.getAttributeResolver().isAttribute(fieldName)){
+            if(valueToken==JsonToken.START_OBJECT){
+                throw new IllegalArgumentException("invalid attribute "+fieldName+" content: "+readValue(parser));
+            }
+            element.addAttribute(domTransformer.getNameCache().encodeAttribute(fieldName),
+                    getText(parser, valueToken, fieldName));
+        } else {
+            element.startContent();
+            startElement(parser, element.writer, fieldName, valueToken, frames);
+        }
+    }
+
+    private void readCollectionItem(JsonParser parser, ContentFrame frame, Deque<ContentFrame> frames) throws IOException, XMLStreamException {
+        JsonToken itemToken = parser.nextToken();
+        if(itemToken==JsonToken.END_ARRAY){
+            frames.pop();
+            return;
+        }
+        if(itemToken==JsonToken.START_OBJECT && domTransformer.getAttributeResolver().isAttribute(frame.name)){
+            throw new IllegalArgumentException("invalid attribute "+frame.name+" content: "+readValue(parser));
+        }
+        if(itemToken!=JsonToken.VALUE_NULL){
+            frame.element.startContent();
+            startElement(parser, frame.element.writer, frame.name, itemToken, frames);
+        }
+    }
+
+    /**
+     * Text representation of value, the same as <code>toString()</code> of value deserialized by ObjectMapper
+     */
+    private static String getText(JsonParser parser, JsonToken valueToken, String fieldName) throws IOException {
+        if(valueToken==JsonToken.VALUE_NULL){
+            throw new IllegalArgumentException("null value of "+fieldName);
+        }
+        return readValue(parser).toString();
+    }
+
+    private static Object readValue(JsonParser parser) throws IOException {
+        switch (parser.currentToken()){
+            case START_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                while (parser.nextToken()==JsonToken.FIELD_NAME){
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    map.put(name, readValue(parser));
+                }
+                return map;
+            case START_ARRAY:
+                List<Object> list = new ArrayList<>();
+                while (parser.nextToken()!=JsonToken.END_ARRAY){
+                    list.add(readValue(parser));
+                }
+                return list;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                return parser.getText();
+        }
+    }
+
+    /**
+     * Content being read: fields of element object, fields of object item of root array, items of array field or
+     * items of root array
+     */
+    private static class ContentFrame {
+        private static final int OBJECT = 0;
+        private static final int LIST_OBJECT = 1;
+        private static final int COLLECTION = 2;
+        private static final int LIST = 3;
+
+        private final int kind;
+        private final ElementWriter element;
+        private final String name;
+
+        /**
+         * @param name field name of array items or root object name
+         */
+        private ContentFrame(int kind, ElementWriter element, String name) {
+            this.kind = kind;
+            this.element = element;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Element with postponed start: attributes are collected until the first content item
+     */
+    private static class ElementWriter {
+        private final XmlSink writer;
+        private final String name;
+        private final Map<String, String> attributes = new TreeMap<>(XmlMapWriter.ATTRIBUTE_ORDER);
+        private boolean started;
+
+        private ElementWriter(XmlSink writer, String name) {
+            this.writer = writer;
+            this.name = name;
+            if(name.isEmpty()){
+                throw new IllegalArgumentException("empty element name");
+            }
+        }
+
+        private void addAttribute(String attributeName, String value) {
+            if(started){
+                throw new IllegalArgumentException("attribute "+attributeName+" of element "+name+
+                        " must precede element content in streaming mode");
+            }
+            attributes.put(attributeName, value);
+        }
+
+        private void startContent() throws IOException, XMLStreamException {
+            if(!started){
+                writer.writeStartElement(name, attributes, false);
+                started = true;
+            }
+        }
+
+        private void writeText(String text) throws IOException, XMLStreamException {
+            startContent();
+            writer.writeCharacters(text);
+        }
+
+        private void writeEnd() throws IOException, XMLStreamException {
+            if(started){
+                writer.writeEndElement(name);
+            } else {
+                writer.writeStartElement(name, attributes, true);
+            }
+        }
+    }
+
+    /**
+     * Target of XML events
+     */
+    private interface XmlSink {
+        void writeStartElement(String name, Map<String, String> attributes, boolean empty) throws IOException, XMLStreamException;
+
+        void writeCharacters(String text) throws IOException, XMLStreamException;
+
+        void writeEndElement(String name) throws IOException, XMLStreamException;
+    }
+
+    private static class StreamWriterSink implements XmlSink {
+        private final XMLStreamWriter writer;
+
+        private StreamWriterSink(XMLStreamWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void writeStartElement(String name, Map<String, String> attributes, boolean empty) throws XMLStreamException {
+            if(empty){
+                writer.writeEmptyElement(name);
+            } else {
+                writer.writeStartElement(name);
+            }
+            for(Map.Entry<String, String> attribute: attributes.entrySet()){
+                writer.writeAttribute(attribute.getKey(), attribute.getValue());
+            }
+        }
+
+        @Override
+        public void writeCharacters(String text) throws XMLStreamException {
+            writer.writeCharacters(text);
+        }
+
+        @Override
+        public void writeEndElement(String name) throws XMLStreamException {
+            writer.writeEndElement();
+        }
+    }
+
+    /**
+     * Text output with escaping of {@link DomTransformer#writeXml(Map, Writer)}
+     */
+    private static class OutputSink implements XmlSink {
+        private final XmlOutput output;
+
+        private OutputSink(XmlOutput output) {
+            this.output = output;
+        }
+
+        @Override
+        public void writeStartElement(String name, Map<String, String> attributes, boolean empty) throws IOException {
+            output.append('<');
+            output.append(name);
+            for(Map.Entry<String, String> attribute: attributes.entrySet()){
+                output.append(' ');
+                output.append(attribute.getKey());
+                output.append("=\"");
+                output.appendAttributeValue(attribute.getValue());
+                output.append('"');
+            }
+            output.append(empty ? "/>" : ">");
+        }
+
+        @Override
+        public void writeCharacters(String text) throws IOException {
+            output.appendText(text);
+        }
+
+        @Override
+        public void writeEndElement(String name) throws IOException {
+            output.append("</");
+            output.append(name);
+            output.append('>');
+        }
+    }
+}
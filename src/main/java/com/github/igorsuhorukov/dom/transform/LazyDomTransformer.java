@@ -0,0 +1,161 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import org.w3c.dom.Node;
+
+import java.util.*;
+
+/**
+ * Map view of DOM node which converts nested elements on access. Attributes and text of element are converted when
+ * element itself is accessed, converted nested values are memoized. Fully iterated view is equal to
+ * {@link DomTransformer#transform(Node)} result.
+ * <p/>
+ * View reads DOM on access, so node must not be modified and view is not thread safe, as DOM itself. Type converter is
+ * expected to return map and list values unchanged.
+ */
+public class LazyDomTransformer {
+
+    private static final Object NULL_VALUE = new Object();
+
+    private final DomTransformer domTransformer;
+
+    public LazyDomTransformer(DomTransformer domTransformer) {
+        this.domTransformer = domTransformer;
+    }
+
+    public Map<String, Object> transform(Node node) {
+        if(DomTransformer.isTextNode(node)){
+            return Collections.singletonMap(node.getNodeName(), domTransformer.getTypeConverter().transform(node.getNodeValue()));
+        }
+        return Collections.singletonMap(domTransformer.getNameCache().decode(node.getNodeName()), elementValue(node));
+    }
+
+    private Object elementValue(Node node) {
+        Map<String, Object> entries = domTransformer.indexElement(node, PendingElement::new, PendingGroup::new);
+        if(entries.size()==1 && entries.containsKey(domTransformer.getValueName())){
+            return entries.values().iterator().next();
+        }
+        if(entries.isEmpty()){
+            return null;
+        }
+        return new LazyNodeMap(entries);
+    }
+
+    private Object resolve(Object value) {
+        if(value instanceof PendingElement){
+            PendingElement pendingElement = (PendingElement) value;
+            Object result = elementValue(pendingElement.node);
+            for(int i = 0; i < pendingElement.conversions; i++){
+                result = domTransformer.getTypeConverter().transform(result);
+            }
+            return result;
+        } else if(value instanceof PendingGroup){
+            return new LazyList(((PendingGroup) value).nodes);
+        }
+        return value;
+    }
+
+    private class LazyNodeMap extends AbstractMap<String, Object> {
+        private final Map<String, Object> entries;
+
+        private LazyNodeMap(Map<String, Object> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return entries.containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            Object value = entries.get(key);
+            if(value instanceof Pending){
+                value = resolve(value);
+                //replacing value of existing key is not structural modification of LinkedHashMap
+                entries.put((String) key, value);
+            }
+            return value;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, Object>> iterator = entries.entrySet().iterator();
+                    return new Iterator<Entry<String, Object>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            Entry<String, Object> entry = iterator.next();
+                            if(entry.getValue() instanceof Pending){
+                                entry.setValue(resolve(entry.getValue()));
+                            }
+                            return new SimpleImmutableEntry<>(entry);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+    }
+
+    private class LazyList extends AbstractList<Object> implements RandomAccess {
+        private final List<Node> nodes;
+        private final Object[] values;
+
+        private LazyList(List<Node> nodes) {
+            this.nodes = nodes;
+            this.values = new Object[nodes.size()];
+        }
+
+        @Override
+        public Object get(int index) {
+            Object value = values[index];
+            if(value==null){
+                value = elementValue(nodes.get(index));
+                values[index] = value!=null ? value : NULL_VALUE;
+            }
+            return value!=NULL_VALUE ? value : null;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    private static abstract class Pending {
+    }
+
+    private static class PendingElement extends Pending {
+        private final Node node;
+        private final int conversions;
+
+        private PendingElement(Node node, int conversions) {
+            this.node = node;
+            this.conversions = conversions;
+        }
+    }
+
+    private static class PendingGroup extends Pending {
+        private final List<Node> nodes;
+
+        private PendingGroup(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import com.github.igorsuhorukov.dom.transform.converter.AttributeDomToObject;
+import com.github.igorsuhorukov.dom.transform.converter.AttributeObjectToDom;
+import org.apache.jackrabbit.util.ISO9075;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Memoize translation between XML and map key names. Each name is translated once and the same result instance
+ * is returned for all its occurrences. Table is cleared when it reaches maximum size, so documents with unbounded
+ * set of names don't retain memory.
+ */
+class NameCache {
+
+    static final int DEFAULT_MAX_SIZE = 4096;
+
+    private final int maxSize;
+    private final Translation decodedNames;
+    private final Translation decodedAttributeNames;
+    private final Translation encodedNames;
+    private final Translation encodedAttributeNames;
+
+    NameCache(AttributeDomToObject attributeDomToObject, AttributeObjectToDom attributeObjectToDom, int maxSize) {
+        if(maxSize <= 0){
+            throw new IllegalArgumentException("invalid name cache size "+maxSize);
+        }
+        this.maxSize = maxSize;
+        this.decodedNames = new Translation(ISO9075::decode);
+        this.decodedAttributeNames = new Translation(name -> ISO9075.decode(attributeDomToObject.getName(name)));
+        this.encodedNames = new Translation(ISO9075::encode);
+        this.encodedAttributeNames = new Translation(name -> ISO9075.encode(attributeObjectToDom.getName(name)));
+    }
+
+    String decode(String name) {
+        return decodedNames.get(name);
+    }
+
+    String decodeAttribute(String domName) {
+        return decodedAttributeNames.get(domName);
+    }
+
+    String encode(String name) {
+        return encodedNames.get(name);
+    }
+
+    String encodeAttribute(String objectName) {
+        return encodedAttributeNames.get(objectName);
+    }
+
+    private class Translation {
+        private final ConcurrentHashMap<String, String> names = new ConcurrentHashMap<>();
+        private final Function<String, String> function;
+
+        private Translation(Function<String, String> function) {
+            this.function = function;
+        }
+
+        private String get(String name) {
+            String result = names.get(name);
+            if(result==null){
+                result = function.apply(name);
+                if(result.equals(name)){
+                    result = name;
+                }
+                if(names.size() >= maxSize){
+                    names.clear();
+                }
+                String previous = names.putIfAbsent(name, result);
+                if(previous!=null){
+                    result = previous;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Positions of names compiled from element shapes. Parsers intern names, so the first names are usually found
+ * by reference comparison, the rest by hash lookup.
+ */
+final class NameIndex {
+
+    static final int MAX_SCANNED_NAMES = 8;
+
+    private final String[] names;
+    private final Map<String, Integer> index = new HashMap<>();
+
+    /**
+     * @param names positions are given in iteration order
+     */
+    NameIndex(Collection<String> names) {
+        this.names = new String[names.size()];
+        int position = 0;
+        for(String name: names){
+            this.names[position] = name.intern();
+            index.put(name, position);
+            position++;
+        }
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    /**
+     * @return position of name or -1 if name is unknown
+     */
+    int indexOf(String name) {
+        for(int i = 0; i < names.length && i < MAX_SCANNED_NAMES; i++){
+            if(names[i]==name){
+                return i;
+            }
+        }
+        Integer position = index.get(name);
+        return position!=null ? position : -1;
+    }
+}
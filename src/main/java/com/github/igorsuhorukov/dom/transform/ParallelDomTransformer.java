@@ -0,0 +1,389 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import org.w3c.dom.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Convert large DOM in {@link ForkJoinPool}: sibling subtrees are split into tasks of at least threshold nodes.
+ * Result is the same as {@link DomTransformer#transform(Node)}.
+ * <p/>
+ * In reverse direction collection items are split into chunks of at least threshold entries. Each chunk is built in
+ * own document from {@link com.github.igorsuhorukov.dom.transform.document.DocumentCreator} and adopted into
+ * the target document in original order, so result is the same as {@link DomTransformer#transform(Map)}.
+ * <p/>
+ * DOM implementations are not thread safe even for reads: Xerces expands deferred nodes and caches node lists on
+ * access. So node names, attributes and text are copied into snapshot in the calling thread first and only the
+ * snapshot is shared with pool threads. Type converter must be thread safe.
+ * <p/>
+ * Tasks are split by recursion over nesting levels, so documents and maps deeper than {@link #MAX_DEPTH} are
+ * converted by the iterative sequential path of {@link DomTransformer} instead.
+ */
+public class ParallelDomTransformer {
+
+    public static final int DEFAULT_THRESHOLD = 1000;
+    /**
+     * Max nesting depth converted in parallel, deeper input is converted sequentially
+     */
+    public static final int MAX_DEPTH = 1000;
+
+    private final DomTransformer domTransformer;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelDomTransformer(DomTransformer domTransformer) {
+        this(domTransformer, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold minimal number of nodes in subtree converted as separate task
+     */
+    public ParallelDomTransformer(DomTransformer domTransformer, ForkJoinPool pool, int threshold) {
+        if(threshold < 1){
+            throw new IllegalArgumentException("threshold must be positive: "+threshold);
+        }
+        this.domTransformer = domTransformer;
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    public Map<String, Object> transform(Node node) {
+        if(DomTransformer.isTextNode(node)){
+            return domTransformer.transform(node);
+        }
+        NodeSnapshot snapshot = NodeSnapshot.create(node);
+        if(snapshot==null){
+            return domTransformer.transform(node);
+        }
+        if(snapshot.size < threshold){
+            return convert(snapshot);
+        }
+        return pool.invoke(new ConversionTask(snapshot));
+    }
+
+    public Node transform(Map<String, Object> objectMap) {
+        if(objectMap.size()!=1){
+            throw new IllegalArgumentException("map size must be 1");
+        }
+        if(isDeeperThanMax(objectMap) || estimateSize(objectMap) < threshold){
+            return domTransformer.transform(objectMap);
+        }
+        Document xmlDoc = domTransformer.getDocumentCreator().newDocument();
+        return pool.invoke(new RecursiveTask<Node>() {
+            @Override
+            protected Node compute() {
+                return domTransformer.transform(xmlDoc, objectMap, ParallelDomTransformer.this::buildCollection);
+            }
+        });
+    }
+
+    /**
+     * Split collection items into chunks built by {@link FragmentTask}
+     * @return false when collection is smaller than threshold and is built sequentially
+     */
+    private boolean buildCollection(Document xmlDoc, Node node, String key, Collection<?> collection) {
+        List<Object> items = new ArrayList<>(collection);
+        List<FragmentTask> tasks = new ArrayList<>();
+        int from = 0;
+        int chunkSize = 0;
+        for(int i = 0; i < items.size(); i++){
+            chunkSize += estimateSize(items.get(i));
+            if(chunkSize >= threshold){
+                tasks.add(new FragmentTask(key, items.subList(from, i + 1)));
+                from = i + 1;
+                chunkSize = 0;
+            }
+        }
+        if(tasks.isEmpty()){
+            return false;
+        }
+        if(from < items.size()){
+            tasks.add(new FragmentTask(key, items.subList(from, items.size())));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        for(FragmentTask task: tasks){
+            node.appendChild(adopt(xmlDoc, task.fragment));
+        }
+        return true;
+    }
+
+    private static Node adopt(Document xmlDoc, DocumentFragment fragment) {
+        Node adopted = null;
+        try {
+            adopted = xmlDoc.adoptNode(fragment);
+        } catch (DOMException e) {
+            //document from other implementation
+        }
+        return adopted!=null ? adopted : xmlDoc.importNode(fragment, true);
+    }
+
+    /**
+     * @return true if nesting of maps and collections in value is deeper than {@link #MAX_DEPTH}
+     */
+    private static boolean isDeeperThanMax(Object value) {
+        Deque<Iterator<?>> path = new ArrayDeque<>();
+        Object current = value;
+        while (true){
+            if(current instanceof Map || current instanceof Collection){
+                if(path.size() >= MAX_DEPTH){
+                    return true;
+                }
+                path.push(current instanceof Map ? ((Map<?, ?>) current).values().iterator() :
+                        ((Collection<?>) current).iterator());
+            }
+            while (!path.isEmpty() && !path.peek().hasNext()){
+                path.pop();
+            }
+            if(path.isEmpty()){
+                return false;
+            }
+            current = path.peek().next();
+        }
+    }
+
+    /**
+     * @return number of entries and items in value, counted up to threshold
+     */
+    private int estimateSize(Object value) {
+        int size = 1;
+        if(value instanceof Map){
+            for(Object item: ((Map<?, ?>) value).values()){
+                size += estimateSize(item);
+                if(size >= threshold){
+                    return threshold;
+                }
+            }
+        } else if(value instanceof Collection){
+            for(Object item: (Collection<?>) value){
+                size += estimateSize(item);
+                if(size >= threshold){
+                    return threshold;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Build collection items in own document, large items are built in parallel too
+     */
+    private class FragmentTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final List<Object> items;
+        private DocumentFragment fragment;
+
+        private FragmentTask(String name, List<Object> items) {
+            this.name = name;
+            this.items = items;
+        }
+
+        @Override
+        protected void compute() {
+            Document xmlDoc = domTransformer.getDocumentCreator().newDocument();
+            fragment = xmlDoc.createDocumentFragment();
+            for(Object item: items){
+                boolean large = item instanceof Map && estimateSize(item) >= threshold;
+                domTransformer.appendCollectionItem(xmlDoc, fragment, name, item,
+                        large ? ParallelDomTransformer.this::buildCollection : null);
+            }
+        }
+    }
+
+    private Map<String, Object> convert(NodeSnapshot snapshot) {
+        List<Map<String, Object>> nestedElements = new ArrayList<>(snapshot.children.length);
+        for(NodeSnapshot child: snapshot.children){
+            nestedElements.add(convert(child));
+        }
+        return createResult(snapshot, nestedElements);
+    }
+
+    private Map<String, Object> createResult(NodeSnapshot snapshot, List<Map<String, Object>> nestedElements) {
+        Map<String, Object> nodesResultSet = new LinkedHashMap<>();
+        if(snapshot.attributeNames.length > 0){
+            Map<String, Object> attributeMap = new HashMap<>();
+            for(int i = 0; i < snapshot.attributeNames.length; i++){
+                domTransformer.putAttribute(attributeMap, snapshot.attributeNames[i], snapshot.attributeValues[i]);
+            }
+            nodesResultSet.putAll(attributeMap);
+        }
+        domTransformer.processTextContent(nodesResultSet, snapshot.text);
+        domTransformer.processNestedElements(nodesResultSet, nestedElements);
+        return domTransformer.createResult(snapshot.name, nodesResultSet);
+    }
+
+    private class ConversionTask extends RecursiveTask<Map<String, Object>> {
+        private static final long serialVersionUID = 1L;
+
+        private final NodeSnapshot snapshot;
+
+        private ConversionTask(NodeSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Nested nodes are split into chunks of at least threshold nodes, so wide elements with small children are
+         * converted in parallel too
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Map<String, Object> compute() {
+            NodeSnapshot[] children = snapshot.children;
+            Map<String, Object>[] results = (Map<String, Object>[]) new Map<?, ?>[children.length];
+            List<ChunkTask> tasks = new ArrayList<>();
+            int from = 0;
+            int chunkSize = 0;
+            for(int i = 0; i < children.length; i++){
+                chunkSize += children[i].size;
+                if(chunkSize >= threshold){
+                    tasks.add(new ChunkTask(children, from, i + 1, results));
+                    from = i + 1;
+                    chunkSize = 0;
+                }
+            }
+            if(from < children.length){
+                tasks.add(new ChunkTask(children, from, children.length, results));
+            }
+            invokeAll(tasks);
+            return createResult(snapshot, Arrays.asList(results));
+        }
+    }
+
+    private class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final NodeSnapshot[] nodes;
+        private final int from;
+        private final int to;
+        private final Map<String, Object>[] results;
+
+        private ChunkTask(NodeSnapshot[] nodes, int from, int to, Map<String, Object>[] results) {
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            for(int i = from; i < to; i++){
+                results[i] = nodes[i].size >= threshold ? new ConversionTask(nodes[i]).compute() : convert(nodes[i]);
+            }
+        }
+    }
+
+    /**
+     * Node data used by conversion: name, attributes, joined text and nested nodes
+     */
+    private static class NodeSnapshot {
+        private static final String[] NO_ATTRIBUTES = new String[0];
+        private static final NodeSnapshot[] NO_CHILDREN = new NodeSnapshot[0];
+
+        private final String name;
+        private final String[] attributeNames;
+        private final String[] attributeValues;
+        private final String text;
+        private final NodeSnapshot[] children;
+        private final int size;
+
+        private NodeSnapshot(Node node, String text, NodeSnapshot[] children, int size) {
+            name = node.getNodeName();
+            NamedNodeMap attributes = node.getAttributes();
+            int attributeCount = attributes!=null ? attributes.getLength() : 0;
+            if(attributeCount > 0){
+                attributeNames = new String[attributeCount];
+                attributeValues = new String[attributeCount];
+                for(int i = 0; i < attributeCount; i++){
+                    Node attribute = attributes.item(i);
+                    attributeNames[i] = attribute.getNodeName();
+                    attributeValues[i] = attribute.getNodeValue();
+                }
+            } else {
+                attributeNames = NO_ATTRIBUTES;
+                attributeValues = NO_ATTRIBUTES;
+            }
+            this.text = text;
+            this.children = children;
+            this.size = size;
+        }
+
+        /**
+         * Copy subtree with explicit stack of frames
+         * @return snapshot or null if subtree is deeper than {@link #MAX_DEPTH}
+         */
+        private static NodeSnapshot create(Node root) {
+            Deque<SnapshotFrame> frames = new ArrayDeque<>();
+            frames.push(new SnapshotFrame(root));
+            NodeSnapshot snapshot = null;
+            while (!frames.isEmpty()){
+                SnapshotFrame frame = frames.peek();
+                Node child = frame.nextChild();
+                if(child==null){
+                    frames.pop();
+                    snapshot = frame.toSnapshot();
+                    if(!frames.isEmpty()){
+                        frames.peek().addNestedNode(snapshot);
+                    }
+                } else if(DomTransformer.isTextNode(child)){
+                    frame.appendText(child.getNodeValue());
+                } else if(DomTransformer.isNestedNode(child)){
+                    if(frames.size() >= MAX_DEPTH){
+                        return null;
+                    }
+                    frames.push(new SnapshotFrame(child));
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Node which nested nodes are being copied into snapshot
+     */
+    private static class SnapshotFrame {
+        private final Node node;
+        private Node nextChild;
+        private StringBuilder textContent;
+        private List<NodeSnapshot> nestedNodes;
+        private int subtreeSize = 1;
+
+        private SnapshotFrame(Node node) {
+            this.node = node;
+            this.nextChild = node.getFirstChild();
+        }
+
+        private Node nextChild() {
+            Node child = nextChild;
+            if(child!=null){
+                nextChild = child.getNextSibling();
+            }
+            return child;
+        }
+
+        private void appendText(String text) {
+            if(textContent==null){
+                textContent = new StringBuilder();
+            }
+            textContent.append(text);
+        }
+
+        private void addNestedNode(NodeSnapshot nestedNode) {
+            if(nestedNodes==null){
+                nestedNodes = new ArrayList<>();
+            }
+            subtreeSize += nestedNode.size;
+            nestedNodes.add(nestedNode);
+        }
+
+        private NodeSnapshot toSnapshot() {
+            return new NodeSnapshot(node, textContent!=null ? textContent.toString() : "",
+                    nestedNodes!=null ? nestedNodes.toArray(NodeSnapshot.NO_CHILDREN) : NodeSnapshot.NO_CHILDREN,
+                    subtreeSize);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import com.github.igorsuhorukov.dom.transform.profile.ElementShape;
+import com.github.igorsuhorukov.dom.transform.profile.ScalarType;
+import com.github.igorsuhorukov.dom.transform.profile.ShapeProfile;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.util.*;
+
+/**
+ * Convert DOM with element shapes known in advance from {@link ShapeProfile}, so siblings are not counted and values
+ * are not probed for type. Elements declared as repeated are lists even for single occurrence, text and attributes
+ * are converted to declared {@link ScalarType}. Text of elements declared without text content is ignored.
+ * <p/>
+ * Element value is built as in {@link DomTransformer#transform(Node)}: map with attributes, text and nested elements,
+ * just converted text when element has no attributes and nested elements, null for empty element. Elements without
+ * shape are converted by {@link DomTransformer}, several occurrences of not repeated element are collected to list.
+ * Map keys are in document order after attributes and text.
+ */
+public class ProfiledDomTransformer {
+
+    private final DomTransformer domTransformer;
+    private final Map<String, CompiledShape> roots = new HashMap<>();
+
+    public ProfiledDomTransformer(DomTransformer domTransformer, ShapeProfile profile) {
+        this.domTransformer = domTransformer;
+        Map<ElementShape, CompiledShape> compiledShapes = new IdentityHashMap<>();
+        profile.getRoots().forEach((name, shape) -> roots.put(name, compile(shape, compiledShapes)));
+    }
+
+    public Map<String, Object> transform(Node node) {
+        CompiledShape shape = node.getNodeType()==Node.ELEMENT_NODE ? roots.get(node.getNodeName()) : null;
+        if(shape==null){
+            return domTransformer.transform(node);
+        }
+        return Collections.singletonMap(domTransformer.getNameCache().decode(node.getNodeName()), elementValue(node, shape));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object elementValue(Node node, CompiledShape shape) {
+        Map<String, Object> result = null;
+        NamedNodeMap attributes = node.getAttributes();
+        int attributeCount = attributes.getLength();
+        for(int i = 0; i < attributeCount; i++){
+            if(result==null){
+                result = new LinkedHashMap<>();
+            }
+            putAttribute(result, shape, attributes.item(i));
+        }
+        Object text = shape.textType!=null ? textValue(node, shape.textType) : null;
+        if(text!=null && result!=null){
+            result.put(domTransformer.getValueName(), text);
+        }
+        Set<String> lists = null;
+        for(Node child = node.getFirstChild(); child!=null; child = child.getNextSibling()){
+            if(!DomTransformer.isNestedNode(child)){
+                continue;
+            }
+            if(result==null){
+                result = new LinkedHashMap<>();
+                if(text!=null){
+                    result.put(domTransformer.getValueName(), text);
+                }
+            }
+            CompiledElement element = shape.elements.get(child.getNodeName());
+            String key;
+            Object value;
+            if(element!=null){
+                key = element.key;
+                value = elementValue(child, element.shape);
+            } else {
+                Map.Entry<String, Object> entry = domTransformer.transformNested(child).entrySet().iterator().next();
+                key = domTransformer.getNameCache().decode(entry.getKey());
+                value = entry.getValue();
+            }
+            if(lists!=null && lists.contains(key)){
+                ((List<Object>) result.get(key)).add(value);
+            } else if((element!=null && element.repeated) || result.containsKey(key)){
+                List<Object> values = new ArrayList<>();
+                if(result.containsKey(key)){
+                    values.add(result.get(key));
+                }
+                values.add(value);
+                result.put(key, values);
+                if(lists==null){
+                    lists = new HashSet<>();
+                }
+                lists.add(key);
+            } else {
+                result.put(key, value);
+            }
+        }
+        if(result==null){
+            return text;
+        }
+        if(result.size()==1 && result.containsKey(domTransformer.getValueName())){
+            return result.get(domTransformer.getValueName());
+        }
+        return result;
+    }
+
+    private void putAttribute(Map<String, Object> result, CompiledShape shape, Node attribute) {
+        CompiledAttribute compiledAttribute = shape.attributes.get(attribute.getNodeName());
+        if(compiledAttribute!=null){
+            result.put(compiledAttribute.key, compiledAttribute.type.convert(attribute.getNodeValue(), domTransformer.getTypeConverter()));
+        } else {
+            result.put(domTransformer.getNameCache().decodeAttribute(attribute.getNodeName()),
+                    domTransformer.getTypeConverter().transform(attribute.getNodeValue()));
+        }
+    }
+
+    private Object textValue(Node node, ScalarType textType) {
+        String text = DomTransformer.joinText(node);
+        if(text==null || DomTransformer.isWhitespace(text)){
+            return null;
+        }
+        return textType.convert(text.trim(), domTransformer.getTypeConverter());
+    }
+
+    private CompiledShape compile(ElementShape shape, Map<ElementShape, CompiledShape> compiledShapes) {
+        CompiledShape compiledShape = compiledShapes.get(shape);
+        if(compiledShape!=null){
+            return compiledShape;
+        }
+        compiledShape = new CompiledShape(shape.getTextType());
+        compiledShapes.put(shape, compiledShape);
+        NameCache nameCache = domTransformer.getNameCache();
+        for(Map.Entry<String, ScalarType> attribute: shape.getAttributes().entrySet()){
+            compiledShape.attributes.put(attribute.getKey(),
+                    new CompiledAttribute(nameCache.decodeAttribute(attribute.getKey()), attribute.getValue()));
+        }
+        for(String name: shape.getElementNames()){
+            //nested element keys are decoded twice, as in DomTransformer
+            compiledShape.elements.put(name, new CompiledElement(nameCache.decode(nameCache.decode(name)),
+                    shape.isRepeated(name), compile(shape.getElement(name), compiledShapes)));
+        }
+        return compiledShape;
+    }
+
+    private static class CompiledShape {
+        private final ScalarType textType;
+        private final Map<String, CompiledAttribute> attributes = new HashMap<>();
+        private final Map<String, CompiledElement> elements = new HashMap<>();
+
+        private CompiledShape(ScalarType textType) {
+            this.textType = textType;
+        }
+    }
+
+    private static class CompiledAttribute {
+        private final String key;
+        private final ScalarType type;
+
+        private CompiledAttribute(String key, ScalarType type) {
+            this.key = key;
+            this.type = type;
+        }
+    }
+
+    private static class CompiledElement {
+        private final String key;
+        private final boolean repeated;
+        private final CompiledShape shape;
+
+        private CompiledElement(String key, boolean repeated, CompiledShape shape) {
+            this.key = key;
+            this.repeated = repeated;
+            this.shape = shape;
+        }
+    }
+}
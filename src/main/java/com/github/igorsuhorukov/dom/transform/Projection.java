@@ -0,0 +1,200 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import java.util.*;
+
+/**
+ * Elements and attributes kept in transformation result, see {@link DomTransformer#transform(org.w3c.dom.Node, Projection)}
+ * and {@link StaxTransformer#transform(javax.xml.stream.XMLStreamReader, Projection)}.
+ * <p/>
+ * Path is a sequence of steps, each step is preceded by <code>/</code> for child element or by <code>//</code> for
+ * element at any depth below. Step is qualified element name or <code>*</code>, the last step may be attribute
+ * <code>@name</code> or <code>@*</code> of element selected by previous steps, like <code>/article/info/title</code>
+ * or <code>//section/@xml:id</code>.
+ * <p/>
+ * Paths are compiled into trie of steps. Selected element is converted with all content. Elements on the way to
+ * selected nodes keep only selected attributes and nested elements, their text is skipped. Subtrees which can't
+ * contain selected nodes are not visited.
+ */
+public class Projection {
+
+    private static final String ANY = "*";
+    private static final Step[] NO_STEPS = new Step[0];
+
+    private final Step root = new Step();
+    private final Match start;
+
+    public Projection(String... paths) {
+        this(Arrays.asList(paths));
+    }
+
+    public Projection(Collection<String> paths) {
+        if(paths.isEmpty()){
+            throw new IllegalArgumentException("at least one path expected");
+        }
+        for(String path: paths){
+            addPath(path);
+        }
+        start = new Match(new Step[]{root}, NO_STEPS);
+    }
+
+    /**
+     * @return match of document node, root element is matched by {@link Match#child(String)}
+     */
+    Match start() {
+        return start;
+    }
+
+    private void addPath(String path) {
+        if(path==null || !path.startsWith("/") || path.length()==1){
+            throw new IllegalArgumentException("absolute path expected: "+path);
+        }
+        Step step = root;
+        int index = 0;
+        while (index < path.length()){
+            boolean descendant = path.startsWith("//", index);
+            index += descendant ? 2 : 1;
+            int end = path.indexOf('/', index);
+            if(end < 0){
+                end = path.length();
+            }
+            String test = path.substring(index, end);
+            if(test.isEmpty()){
+                throw new IllegalArgumentException("empty step in path: "+path);
+            }
+            if(test.startsWith("@")){
+                if(end!=path.length() || test.length()==1){
+                    throw new IllegalArgumentException("attribute must be the last step: "+path);
+                }
+                if(descendant){
+                    step = step.addElement(true, ANY);
+                }
+                step.addAttribute(test.substring(1));
+                return;
+            }
+            step = step.addElement(descendant, test);
+            index = end;
+        }
+        step.selected = true;
+    }
+
+    /**
+     * Node of path trie: element steps by name, attributes of element and whether element itself is selected
+     */
+    private static class Step {
+        private final Map<String, Step> children = new HashMap<>();
+        private final Map<String, Step> descendants = new HashMap<>();
+        private final Set<String> attributes = new HashSet<>();
+        private boolean allAttributes;
+        private boolean selected;
+
+        private Step addElement(boolean descendant, String name) {
+            return (descendant ? descendants : children).computeIfAbsent(name, stepName -> new Step());
+        }
+
+        private void addAttribute(String name) {
+            if(ANY.equals(name)){
+                allAttributes = true;
+            } else {
+                attributes.add(name);
+            }
+        }
+    }
+
+    /**
+     * Steps matched by element and steps of ancestors which match elements at any depth. Empty match means subtree
+     * can't contain selected nodes.
+     */
+    static final class Match {
+        private static final Match EMPTY = new Match(NO_STEPS, NO_STEPS);
+
+        private final Step[] entered;
+        private final Step[] carried;
+        private final boolean selected;
+        private final boolean hasAttributes;
+
+        private Match(Step[] entered, Step[] carried) {
+            this.entered = entered;
+            this.carried = carried;
+            boolean selectedStep = false;
+            boolean attributeStep = false;
+            for(Step step: entered){
+                selectedStep |= step.selected;
+                attributeStep |= step.allAttributes || !step.attributes.isEmpty();
+            }
+            this.selected = selectedStep;
+            this.hasAttributes = attributeStep;
+        }
+
+        Match child(String name) {
+            List<Step> childSteps = null;
+            for(Step step: entered){
+                childSteps = add(childSteps, step.children.get(name));
+                childSteps = add(childSteps, step.children.get(ANY));
+            }
+            Step[] childCarried = carried;
+            for(Step step: entered){
+                if(!step.descendants.isEmpty() && !contains(childCarried, step)){
+                    childCarried = Arrays.copyOf(childCarried, childCarried.length + 1);
+                    childCarried[childCarried.length - 1] = step;
+                }
+            }
+            for(Step step: childCarried){
+                childSteps = add(childSteps, step.descendants.get(name));
+                childSteps = add(childSteps, step.descendants.get(ANY));
+            }
+            if(childSteps==null && childCarried.length==0){
+                return EMPTY;
+            }
+            return new Match(childSteps!=null ? childSteps.toArray(NO_STEPS) : NO_STEPS, childCarried);
+        }
+
+        private static boolean contains(Step[] steps, Step step) {
+            for(Step existing: steps){
+                if(existing==step){
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static List<Step> add(List<Step> steps, Step step) {
+            if(step==null){
+                return steps;
+            }
+            if(steps==null){
+                steps = new ArrayList<>(2);
+            }
+            for(Step existing: steps){
+                if(existing==step){
+                    return steps;
+                }
+            }
+            steps.add(step);
+            return steps;
+        }
+
+        boolean isEmpty() {
+            return entered.length==0 && carried.length==0;
+        }
+
+        /**
+         * @return element is selected with all content
+         */
+        boolean isSelected() {
+            return selected;
+        }
+
+        boolean hasAttributes() {
+            return hasAttributes;
+        }
+
+        boolean isAttributeSelected(String name) {
+            for(Step step: entered){
+                if(step.allAttributes || step.attributes.contains(name)){
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
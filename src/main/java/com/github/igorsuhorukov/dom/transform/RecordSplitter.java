@@ -0,0 +1,144 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Split big envelope document into records: each element on configured path (like <code>/feed/item</code>)
+ * is converted separately by {@link StaxTransformer} and handed to the caller, so memory is bounded
+ * by the largest record instead of the whole document. Path segments are qualified element names,
+ * <code>*</code> matches any element.
+ */
+public class RecordSplitter {
+
+    private static final String ANY_ELEMENT = "*";
+
+    private final StaxTransformer staxTransformer;
+    private final String[] recordPath;
+
+    public RecordSplitter(DomTransformer domTransformer, String recordPath) {
+        this(new StaxTransformer(domTransformer), recordPath);
+    }
+
+    public RecordSplitter(StaxTransformer staxTransformer, String recordPath) {
+        if(recordPath==null || !recordPath.startsWith("/") || recordPath.length()==1){
+            throw new IllegalArgumentException("absolute record path expected: "+recordPath);
+        }
+        this.staxTransformer = staxTransformer;
+        this.recordPath = recordPath.substring(1).split("/");
+        if(Arrays.asList(this.recordPath).contains("")){
+            throw new IllegalArgumentException("empty step in record path: "+recordPath);
+        }
+    }
+
+    public void split(InputStream inputStream, Consumer<Map<String, Object>> recordConsumer) throws XMLStreamException {
+        XMLStreamReader reader = StaxTransformer.createReader(inputStream);
+        try {
+            split(reader, recordConsumer);
+        } finally {
+            reader.close();
+        }
+    }
+
+    public void split(XMLStreamReader reader, Consumer<Map<String, Object>> recordConsumer) throws XMLStreamException {
+        RecordCursor cursor = new RecordCursor(reader);
+        while (cursor.nextRecord()){
+            recordConsumer.accept(staxTransformer.transform(reader));
+            cursor.recordConsumed();
+        }
+    }
+
+    /**
+     * Lazy record iterator, reader is advanced only on demand. Parsing errors are rethrown as
+     * {@link IllegalArgumentException}. Caller is responsible for closing the reader.
+     */
+    public Iterator<Map<String, Object>> iterator(XMLStreamReader reader) {
+        RecordCursor cursor = new RecordCursor(reader);
+        return new Iterator<Map<String, Object>>() {
+            private Boolean hasRecord;
+
+            @Override
+            public boolean hasNext() {
+                if(hasRecord==null){
+                    try {
+                        hasRecord = cursor.nextRecord();
+                    } catch (XMLStreamException e) {
+                        throw new IllegalArgumentException(e);
+                    }
+                }
+                return hasRecord;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if(!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                hasRecord = null;
+                try {
+                    Map<String, Object> record = staxTransformer.transform(reader);
+                    cursor.recordConsumed();
+                    return record;
+                } catch (XMLStreamException e) {
+                    throw new IllegalArgumentException(e);
+                }
+            }
+        };
+    }
+
+    private class RecordCursor {
+        private final XMLStreamReader reader;
+        private int depth;
+
+        private RecordCursor(XMLStreamReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Advance reader to START_ELEMENT of the next record, elements outside of record path are skipped,
+         * so current depth is always the count of matched path steps
+         */
+        private boolean nextRecord() throws XMLStreamException {
+            while (reader.hasNext()){
+                int event = reader.next();
+                if(event==XMLStreamConstants.START_ELEMENT){
+                    depth++;
+                    if(!isStepMatched(recordPath[depth-1])){
+                        skipElement();
+                    } else if(depth==recordPath.length){
+                        return true;
+                    }
+                } else if(event==XMLStreamConstants.END_ELEMENT){
+                    depth--;
+                }
+            }
+            return false;
+        }
+
+        private void recordConsumed() {
+            depth--;
+        }
+
+        private boolean isStepMatched(String step) {
+            return ANY_ELEMENT.equals(step) ||
+                    step.equals(StaxTransformer.getQualifiedName(reader.getPrefix(), reader.getLocalName()));
+        }
+
+        private void skipElement() throws XMLStreamException {
+            int level = 1;
+            while (level > 0){
+                int event = reader.next();
+                if(event==XMLStreamConstants.START_ELEMENT){
+                    level++;
+                } else if(event==XMLStreamConstants.END_ELEMENT){
+                    level--;
+                }
+            }
+            depth--;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.igorsuhorukov.dom.transform;
+
+/**
+ * Thrown without stack trace by shape specialized conversion when input doesn't follow the shape, caller converts
+ * input again by generic path
+ */
+final class ShapeDeviation extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    static final ShapeDeviation INSTANCE = new ShapeDeviation();
+
+    private ShapeDeviation() {
+        super(null, null, false, false);
+    }
+}
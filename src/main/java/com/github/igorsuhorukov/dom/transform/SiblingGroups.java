@@ -0,0 +1,89 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Single pass grouping of sibling elements by name. Repeated names are iterated in the order of
+ * {@link java.util.stream.Collectors#groupingBy(Function)} hash map, unique names in document order.
+ */
+class SiblingGroups<T> {
+
+    private final List<T> items;
+    private final Group<T>[] itemGroups;
+    private final Map<String, Group<T>> groups = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    SiblingGroups(List<T> items, Function<T, String> keyFunction) {
+        this.items = items;
+        this.itemGroups = (Group<T>[]) new Group<?>[items.size()];
+        int index = 0;
+        for(T item: items){
+            //computeIfAbsent resizes table at the same moments as groupingBy, so iteration order is the same
+            Group<T> group = groups.computeIfAbsent(keyFunction.apply(item), Group::new);
+            group.add(item);
+            itemGroups[index++] = group;
+        }
+    }
+
+    boolean allNamesAreUnique() {
+        return groups.size()==items.size();
+    }
+
+    Iterable<Group<T>> repeatedGroups() {
+        List<Group<T>> repeatedGroups = new ArrayList<>();
+        for(Group<T> group: groups.values()){
+            if(group.items!=null){
+                repeatedGroups.add(group);
+            }
+        }
+        return repeatedGroups;
+    }
+
+    /**
+     * @return items with unique names in document order
+     */
+    Iterable<Group<T>> uniqueGroups() {
+        List<Group<T>> uniqueGroups = new ArrayList<>();
+        for(Group<T> group: itemGroups){
+            if(group.items==null){
+                uniqueGroups.add(group);
+            }
+        }
+        return uniqueGroups;
+    }
+
+    static class Group<T> {
+        private final String name;
+        private T first;
+        private List<T> items;
+
+        private Group(String name) {
+            this.name = name;
+        }
+
+        private void add(T item) {
+            if(items!=null){
+                items.add(item);
+            } else if(first!=null){
+                items = new ArrayList<>();
+                items.add(first);
+                items.add(item);
+            } else {
+                first = item;
+            }
+        }
+
+        String getName() {
+            return name;
+        }
+
+        T getFirst() {
+            return first;
+        }
+
+        List<T> getItems() {
+            return items!=null ? items : Collections.singletonList(first);
+        }
+    }
+}
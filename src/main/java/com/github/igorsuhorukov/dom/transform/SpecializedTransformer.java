@@ -0,0 +1,339 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import com.github.igorsuhorukov.dom.transform.profile.ElementShape;
+import com.github.igorsuhorukov.dom.transform.profile.ScalarType;
+import com.github.igorsuhorukov.dom.transform.profile.ShapeProfile;
+import org.w3c.dom.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transformer compiled from {@link ShapeProfile} for documents which strictly follow the profile. Each element shape
+ * is compiled into reader and writer with name tables, keys, DOM names and value types resolved in advance, so
+ * conversion of conforming document doesn't look up names, resolve attributes or group siblings.
+ * <p/>
+ * Document with undeclared element or attribute, or with several occurrences of not repeated element, is converted
+ * again by {@link ProfiledDomTransformer}, map which doesn't follow the profile by {@link DomTransformer}. So results
+ * are always the same as of these transformers, deviations are counted by {@link #getFallbackCount()}.
+ */
+public class SpecializedTransformer {
+
+    private final DomTransformer domTransformer;
+    private final ProfiledDomTransformer profiledDomTransformer;
+    private final Map<String, ElementReader> readers = new HashMap<>();
+    private final Map<String, Slot> writers = new HashMap<>();
+    private final LongAdder fallbackCount = new LongAdder();
+
+    public SpecializedTransformer(DomTransformer domTransformer, ShapeProfile profile) {
+        this.domTransformer = domTransformer;
+        this.profiledDomTransformer = new ProfiledDomTransformer(domTransformer, profile);
+        Map<ElementShape, ElementReader> compiledReaders = new IdentityHashMap<>();
+        Map<ElementShape, ContentWriter> compiledWriters = new IdentityHashMap<>();
+        NameCache nameCache = domTransformer.getNameCache();
+        profile.getRoots().forEach((name, shape) -> {
+            readers.put(name, compileReader(shape, compiledReaders));
+            String key = nameCache.decode(name);
+            writers.put(key, new Slot(Slot.ELEMENT, nameCache.encode(key), compileWriter(shape, compiledWriters)));
+        });
+    }
+
+    public Map<String, Object> transform(Node node) {
+        ElementReader reader = node.getNodeType()==Node.ELEMENT_NODE ? readers.get(node.getNodeName()) : null;
+        if(reader!=null){
+            try {
+                return Collections.singletonMap(domTransformer.getNameCache().decode(node.getNodeName()), reader.read(node));
+            } catch (ShapeDeviation e) {
+                fallbackCount.increment();
+            }
+        }
+        return profiledDomTransformer.transform(node);
+    }
+
+    public Node transform(Map<String, Object> objectMap) {
+        if(objectMap.size()==1){
+            Map.Entry<String, Object> entry = objectMap.entrySet().iterator().next();
+            Slot slot = writers.get(entry.getKey());
+            if(slot!=null){
+                try {
+                    return writeRoot(domTransformer.getDocumentCreator().newDocument(), slot, entry.getValue());
+                } catch (ShapeDeviation e) {
+                    fallbackCount.increment();
+                }
+            }
+        }
+        return domTransformer.transform(objectMap);
+    }
+
+    /**
+     * @return number of documents and maps converted by generic transformers because they deviate from the profile
+     */
+    public long getFallbackCount() {
+        return fallbackCount.sum();
+    }
+
+    private ElementReader compileReader(ElementShape shape, Map<ElementShape, ElementReader> compiledReaders) {
+        ElementReader reader = compiledReaders.get(shape);
+        if(reader!=null){
+            return reader;
+        }
+        if(shape.getAttributes().isEmpty() && shape.getElementNames().isEmpty()){
+            reader = new TextReader(shape.getTextType());
+            compiledReaders.put(shape, reader);
+            return reader;
+        }
+        ComplexReader complexReader = new ComplexReader(shape);
+        compiledReaders.put(shape, complexReader);
+        List<String> names = new ArrayList<>(shape.getElementNames());
+        for(int i = 0; i < names.size(); i++){
+            complexReader.elementReaders[i] = compileReader(shape.getElement(names.get(i)), compiledReaders);
+        }
+        return complexReader;
+    }
+
+    private ContentWriter compileWriter(ElementShape shape, Map<ElementShape, ContentWriter> compiledWriters) {
+        ContentWriter writer = compiledWriters.get(shape);
+        if(writer!=null){
+            return writer;
+        }
+        writer = new ContentWriter();
+        compiledWriters.put(shape, writer);
+        NameCache nameCache = domTransformer.getNameCache();
+        if(shape.hasText()){
+            writer.slots.put(domTransformer.getValueName(), new Slot(Slot.TEXT, null, null));
+        }
+        for(String name: shape.getAttributes().keySet()){
+            String key = nameCache.decodeAttribute(name);
+            writer.slots.put(key, new Slot(Slot.ATTRIBUTE, nameCache.encodeAttribute(key), null));
+        }
+        for(String name: shape.getElementNames()){
+            String key = nameCache.decode(nameCache.decode(name));
+            writer.slots.put(key, new Slot(Slot.ELEMENT, nameCache.encode(key),
+                    compileWriter(shape.getElement(name), compiledWriters)));
+        }
+        return writer;
+    }
+
+    private Object readText(Node element, ScalarType textType) {
+        String text = DomTransformer.joinText(element);
+        if(text==null || DomTransformer.isWhitespace(text)){
+            return null;
+        }
+        return textType.convert(text.trim(), domTransformer.getTypeConverter());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node writeRoot(Document xmlDoc, Slot slot, Object value) {
+        if(value instanceof List){
+            Element element = createElement(xmlDoc, slot.name);
+            for(Object item: (List) value){
+                if(item instanceof Map){
+                    slot.writer.write(xmlDoc, element, (Map<String, Object>) item);
+                } else {
+                    element.appendChild(xmlDoc.createTextNode(item.toString()));
+                }
+            }
+            return element;
+        }
+        return writeElement(xmlDoc, slot, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Element writeElement(Document xmlDoc, Slot slot, Object value) {
+        Element element = createElement(xmlDoc, slot.name);
+        if(value instanceof Map){
+            slot.writer.write(xmlDoc, element, (Map<String, Object>) value);
+        } else if(value!=null){
+            element.appendChild(xmlDoc.createTextNode(value.toString()));
+        }
+        return element;
+    }
+
+    private static Element createElement(Document xmlDoc, String name) {
+        try {
+            return xmlDoc.createElement(name);
+        } catch (DOMException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private abstract static class ElementReader {
+        abstract Object read(Node element);
+    }
+
+    /**
+     * Element with text only
+     */
+    private class TextReader extends ElementReader {
+        private final ScalarType textType;
+
+        private TextReader(ScalarType textType) {
+            this.textType = textType;
+        }
+
+        @Override
+        Object read(Node element) {
+            if(element.hasAttributes()){
+                throw ShapeDeviation.INSTANCE;
+            }
+            for(Node child = element.getFirstChild(); child!=null; child = child.getNextSibling()){
+                if(DomTransformer.isNestedNode(child)){
+                    throw ShapeDeviation.INSTANCE;
+                }
+            }
+            return textType!=null ? readText(element, textType) : null;
+        }
+    }
+
+    private class ComplexReader extends ElementReader {
+        private final ScalarType textType;
+        private final NameIndex attributeNames;
+        private final String[] attributeKeys;
+        private final ScalarType[] attributeTypes;
+        private final NameIndex elementNames;
+        private final String[] elementKeys;
+        private final boolean[] repeated;
+        private final ElementReader[] elementReaders;
+        private final int capacity;
+
+        private ComplexReader(ElementShape shape) {
+            NameCache nameCache = domTransformer.getNameCache();
+            textType = shape.getTextType();
+            int attributeCount = shape.getAttributes().size();
+            attributeNames = new NameIndex(shape.getAttributes().keySet());
+            attributeKeys = new String[attributeCount];
+            attributeTypes = new ScalarType[attributeCount];
+            int index = 0;
+            for(Map.Entry<String, ScalarType> attribute: shape.getAttributes().entrySet()){
+                attributeKeys[index] = nameCache.decodeAttribute(attribute.getKey());
+                attributeTypes[index] = attribute.getValue();
+                index++;
+            }
+            int elementCount = shape.getElementNames().size();
+            elementNames = new NameIndex(shape.getElementNames());
+            elementKeys = new String[elementCount];
+            repeated = new boolean[elementCount];
+            elementReaders = new ElementReader[elementCount];
+            index = 0;
+            for(String name: shape.getElementNames()){
+                elementKeys[index] = nameCache.decode(nameCache.decode(name));
+                repeated[index] = shape.isRepeated(name);
+                index++;
+            }
+            capacity = (attributeCount + elementCount + 1) * 4 / 3 + 1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object read(Node element) {
+            Map<String, Object> result = null;
+            NamedNodeMap attributes = element.getAttributes();
+            int attributeCount = attributes.getLength();
+            for(int i = 0; i < attributeCount; i++){
+                Node attribute = attributes.item(i);
+                int index = indexOf(attributeNames, attribute.getNodeName());
+                if(result==null){
+                    result = new LinkedHashMap<>(capacity);
+                }
+                result.put(attributeKeys[index], attributeTypes[index].convert(attribute.getNodeValue(), domTransformer.getTypeConverter()));
+            }
+            Object text = textType!=null ? readText(element, textType) : null;
+            if(text!=null && result!=null){
+                result.put(domTransformer.getValueName(), text);
+            }
+            for(Node child = element.getFirstChild(); child!=null; child = child.getNextSibling()){
+                if(!DomTransformer.isNestedNode(child)){
+                    continue;
+                }
+                int index = indexOf(elementNames, child.getNodeName());
+                Object value = elementReaders[index].read(child);
+                if(result==null){
+                    result = new LinkedHashMap<>(capacity);
+                    if(text!=null){
+                        result.put(domTransformer.getValueName(), text);
+                    }
+                }
+                String key = elementKeys[index];
+                if(repeated[index]){
+                    List<Object> values = (List<Object>) result.get(key);
+                    if(values==null){
+                        values = new ArrayList<>();
+                        result.put(key, values);
+                    }
+                    values.add(value);
+                } else if(result.containsKey(key)){
+                    throw ShapeDeviation.INSTANCE;
+                } else {
+                    result.put(key, value);
+                }
+            }
+            if(result==null){
+                return text;
+            }
+            if(result.size()==1 && text!=null){
+                return text;
+            }
+            return result;
+        }
+
+        private int indexOf(NameIndex names, String name) {
+            int index = names.indexOf(name);
+            if(index < 0){
+                throw ShapeDeviation.INSTANCE;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Target of map key in element content
+     */
+    private static class Slot {
+        private static final int TEXT = 0;
+        private static final int ATTRIBUTE = 1;
+        private static final int ELEMENT = 2;
+
+        private final int kind;
+        private final String name;
+        private final ContentWriter writer;
+
+        private Slot(int kind, String name, ContentWriter writer) {
+            this.kind = kind;
+            this.name = name;
+            this.writer = writer;
+        }
+    }
+
+    private class ContentWriter {
+        private final Map<String, Slot> slots = new HashMap<>();
+
+        void write(Document xmlDoc, Element node, Map<String, Object> content) {
+            for(Map.Entry<String, Object> entry: content.entrySet()){
+                Slot slot = slots.get(entry.getKey());
+                Object value = entry.getValue();
+                if(slot==null || (slot.kind!=Slot.ELEMENT && (value==null || value instanceof Map || value instanceof Collection))){
+                    throw ShapeDeviation.INSTANCE;
+                }
+                if(slot.kind==Slot.TEXT){
+                    node.appendChild(xmlDoc.createTextNode(value.toString()));
+                } else if(slot.kind==Slot.ATTRIBUTE){
+                    Attr attribute = xmlDoc.createAttribute(slot.name);
+                    attribute.setValue(value.toString());
+                    node.setAttributeNode(attribute);
+                } else if(value instanceof Collection){
+                    for(Object item: (Collection) value){
+                        if(item instanceof Map){
+                            node.appendChild(writeElement(xmlDoc, slot, item));
+                        } else if(item!=null){
+                            Element element = xmlDoc.createElement(slot.name);
+                            element.appendChild(xmlDoc.createTextNode(item.toString()));
+                            node.appendChild(element);
+                        }
+                    }
+                } else {
+                    node.appendChild(writeElement(xmlDoc, slot, value));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import com.github.igorsuhorukov.dom.transform.converter.TypeConverter;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Streaming counterpart of {@link DomTransformer#transform(org.w3c.dom.Node)}: reads the element subtree
+ * from {@link XMLStreamReader} in one pass and produces the same map shape without building DOM.
+ */
+public class StaxTransformer {
+
+    private static final String XMLNS = "xmlns";
+    private static final ThreadLocal<XMLInputFactory> INPUT_FACTORY = ThreadLocal.withInitial(XMLInputFactory::newInstance);
+
+    private final DomTransformer domTransformer;
+
+    public StaxTransformer(TypeConverter typeConverter) {
+        this(new DomTransformer(typeConverter));
+    }
+
+    /**
+     * @param domTransformer source of conversion rules: type converter, attribute naming and value name
+     */
+    public StaxTransformer(DomTransformer domTransformer) {
+        this.domTransformer = domTransformer;
+    }
+
+    public Map<String, Object> transform(InputStream inputStream) throws XMLStreamException {
+        XMLStreamReader reader = createReader(inputStream);
+        try {
+            return transform(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    public Map<String, Object> transform(InputStream inputStream, Projection projection) throws XMLStreamException {
+        XMLStreamReader reader = createReader(inputStream);
+        try {
+            return transform(reader, projection);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Transform element at current reader position (or the next element if reader is positioned before it).
+     * On return reader is positioned at END_ELEMENT event of the transformed element.
+     */
+    public Map<String, Object> transform(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.getEventType()!=XMLStreamConstants.START_ELEMENT){
+            if(!reader.hasNext()){
+                throw new IllegalArgumentException("no element found in stream");
+            }
+            reader.next();
+        }
+        Deque<ElementFrame> frames = new ArrayDeque<>();
+        frames.push(new ElementFrame(reader, domTransformer));
+        while (reader.hasNext()){
+            switch (reader.next()){
+                case XMLStreamConstants.START_ELEMENT:
+                    frames.push(new ElementFrame(reader, domTransformer));
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    frames.peek().appendText(reader);
+                    break;
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    frames.peek().text.append(reader.getText());
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    frames.peek().nestedElements.add(
+                            domTransformer.createResult(reader.getPITarget(), Collections.emptyMap()));
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    Map<String, Object> element = frames.pop().toResult(domTransformer);
+                    if(frames.isEmpty()){
+                        return element;
+                    }
+                    frames.peek().nestedElements.add(element);
+                    break;
+                default:
+            }
+        }
+        throw new IllegalArgumentException("unexpected end of stream");
+    }
+
+    /**
+     * Transform only nodes selected by projection, content of elements which can't contain selected nodes is skipped
+     * without reading attributes and text. On return reader is positioned at END_ELEMENT event of the element.
+     * @return empty map when nothing is selected
+     */
+    public Map<String, Object> transform(XMLStreamReader reader, Projection projection) throws XMLStreamException {
+        while (reader.getEventType()!=XMLStreamConstants.START_ELEMENT){
+            if(!reader.hasNext()){
+                throw new IllegalArgumentException("no element found in stream");
+            }
+            reader.next();
+        }
+        Projection.Match match = projection.start().child(getQualifiedName(reader.getPrefix(), reader.getLocalName()));
+        if(match.isSelected()){
+            return transform(reader);
+        }
+        if(match.isEmpty()){
+            skipElement(reader);
+            return Collections.emptyMap();
+        }
+        Deque<ElementFrame> frames = new ArrayDeque<>();
+        frames.push(new ElementFrame(reader, domTransformer, match));
+        while (reader.hasNext()){
+            switch (reader.next()){
+                case XMLStreamConstants.START_ELEMENT:
+                    Projection.Match childMatch = frames.peek().match.child(
+                            getQualifiedName(reader.getPrefix(), reader.getLocalName()));
+                    if(childMatch.isSelected()){
+                        frames.peek().nestedElements.add(transform(reader));
+                    } else if(childMatch.isEmpty()){
+                        skipElement(reader);
+                    } else {
+                        frames.push(new ElementFrame(reader, domTransformer, childMatch));
+                    }
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    if(frames.peek().match.child(reader.getPITarget()).isSelected()){
+                        frames.peek().nestedElements.add(
+                                domTransformer.createResult(reader.getPITarget(), Collections.emptyMap()));
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    ElementFrame frame = frames.pop();
+                    Map<String, Object> element = frame.isEmpty() ? null : frame.toResult(domTransformer);
+                    if(frames.isEmpty()){
+                        return element!=null ? element : Collections.emptyMap();
+                    }
+                    if(element!=null){
+                        frames.peek().nestedElements.add(element);
+                    }
+                    break;
+                default:
+            }
+        }
+        throw new IllegalArgumentException("unexpected end of stream");
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int level = 1;
+        while (level > 0){
+            int event = reader.next();
+            if(event==XMLStreamConstants.START_ELEMENT){
+                level++;
+            } else if(event==XMLStreamConstants.END_ELEMENT){
+                level--;
+            }
+        }
+    }
+
+    static XMLStreamReader createReader(InputStream inputStream) throws XMLStreamException {
+        return INPUT_FACTORY.get().createXMLStreamReader(inputStream);
+    }
+
+    static String getQualifiedName(String prefix, String localName) {
+        return prefix==null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+    }
+
+    private static class ElementFrame {
+        private final String nodeName;
+        private final Map<String, Object> attributes;
+        private final StringBuilder text = new StringBuilder();
+        private final List<Map<String, Object>> nestedElements = new ArrayList<>();
+        private final Projection.Match match;
+
+        private ElementFrame(XMLStreamReader reader, DomTransformer domTransformer) {
+            this(reader, domTransformer, null);
+        }
+
+        /**
+         * @param match projection match of element, only selected attributes are kept; null to keep all attributes
+         */
+        private ElementFrame(XMLStreamReader reader, DomTransformer domTransformer, Projection.Match match) {
+            this.nodeName = getQualifiedName(reader.getPrefix(), reader.getLocalName());
+            this.match = match;
+            int namespaceCount = reader.getNamespaceCount();
+            int attributeCount = reader.getAttributeCount();
+            if(namespaceCount + attributeCount > 0 && (match==null || match.hasAttributes())){
+                String[][] rawAttributes = new String[namespaceCount + attributeCount][];
+                for(int i = 0; i < namespaceCount; i++){
+                    String prefix = reader.getNamespacePrefix(i);
+                    rawAttributes[i] = new String[]{prefix==null || prefix.isEmpty() ? XMLNS : XMLNS + ':' + prefix,
+                            reader.getNamespaceURI(i)};
+                }
+                for(int i = 0; i < attributeCount; i++){
+                    rawAttributes[namespaceCount + i] = new String[]{
+                            getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                            reader.getAttributeValue(i)};
+                }
+                //DOM keeps attributes ordered by name, same insertion order gives the same map iteration order
+                Arrays.sort(rawAttributes, Comparator.comparing(attribute -> attribute[0]));
+                attributes = new HashMap<>();
+                for(String[] attribute : rawAttributes){
+                    if(match==null || match.isAttributeSelected(attribute[0])){
+                        domTransformer.putAttribute(attributes, attribute[0], attribute[1]);
+                    }
+                }
+            } else {
+                attributes = Collections.emptyMap();
+            }
+        }
+
+        private void appendText(XMLStreamReader reader) {
+            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        }
+
+        private boolean isEmpty() {
+            return attributes.isEmpty() && nestedElements.isEmpty();
+        }
+
+        private Map<String, Object> toResult(DomTransformer domTransformer) {
+            Map<String, Object> nodesResultSet = new LinkedHashMap<>();
+            nodesResultSet.putAll(attributes);
+            domTransformer.processTextContent(nodesResultSet, text.toString());
+            domTransformer.processNestedElements(nodesResultSet, nestedElements);
+            return domTransformer.createResult(nodeName, nodesResultSet);
+        }
+    }
+}
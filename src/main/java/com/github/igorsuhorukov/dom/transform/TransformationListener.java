@@ -0,0 +1,21 @@
+package com.github.igorsuhorukov.dom.transform;
+
+/**
+ * Receives statistics of each public DomTransformer call which converts DOM to map, including parsing and projection.
+ * Nested nodes converted by generic transformer on fallback of other transformers are not reported separately.
+ * Statistics are collected only when listener is set and enabled, without listener transformation is not instrumented.
+ * <p/>
+ * Listener is called in transforming thread after result is built, so it must be thread safe and fast.
+ */
+public interface TransformationListener {
+
+    /**
+     * Checked once per call before transformation
+     * @return false to skip collecting statistics of the call
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    void transformed(TransformationStatistics statistics);
+}
@@ -0,0 +1,158 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import com.github.igorsuhorukov.dom.transform.converter.TypeConverter;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Counters and phase times of one transformation call. Time of nested elements processing includes type conversion
+ * of nested values, total time includes parsing.
+ */
+public final class TransformationStatistics {
+
+    private final long startTime = System.nanoTime();
+    private long parseNanos;
+    private long totalNanos;
+    private long elementCount;
+    private long attributeCount;
+    private long textNodeCount;
+    private long textBytes;
+    private int maxDepth;
+    private long typeConversionCount;
+    private long typeConversionNanos;
+    private long nestedElementsNanos;
+
+    TransformationStatistics() {
+    }
+
+    /**
+     * @return converter which adds conversion time to statistics
+     */
+    TypeConverter timed(TypeConverter typeConverter) {
+        return srcData -> {
+            long start = System.nanoTime();
+            try {
+                return typeConverter.transform(srcData);
+            } finally {
+                typeConversionNanos += System.nanoTime() - start;
+                typeConversionCount++;
+            }
+        };
+    }
+
+    void parsed() {
+        parseNanos = System.nanoTime() - startTime;
+    }
+
+    void addElement(Node node, int depth) {
+        elementCount++;
+        NamedNodeMap attributes = node.getAttributes();
+        if(attributes!=null){
+            attributeCount += attributes.getLength();
+        }
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    void addText(String text) {
+        textNodeCount++;
+        textBytes += utf8Length(text);
+    }
+
+    void addNestedElementsTime(long nanos) {
+        nestedElementsNanos += nanos;
+    }
+
+    void finish() {
+        totalNanos = System.nanoTime() - startTime;
+    }
+
+    static long utf8Length(String text) {
+        long length = 0;
+        for(int i = 0; i < text.length(); i++){
+            char symbol = text.charAt(i);
+            if(symbol < 0x80){
+                length++;
+            } else if(symbol < 0x800){
+                length += 2;
+            } else if(Character.isHighSurrogate(symbol) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))){
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return parse time, zero when transformed node was parsed outside of transformer
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return number of elements and processing instructions
+     */
+    public long getElementCount() {
+        return elementCount;
+    }
+
+    public long getAttributeCount() {
+        return attributeCount;
+    }
+
+    /**
+     * @return number of text and CDATA nodes
+     */
+    public long getTextNodeCount() {
+        return textNodeCount;
+    }
+
+    /**
+     * @return UTF-8 length of text and CDATA nodes
+     */
+    public long getTextBytes() {
+        return textBytes;
+    }
+
+    /**
+     * @return depth of the deepest element, transformed element has depth 1
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getTypeConversionCount() {
+        return typeConversionCount;
+    }
+
+    public long getTypeConversionNanos() {
+        return typeConversionNanos;
+    }
+
+    public long getNestedElementsNanos() {
+        return nestedElementsNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "TransformationStatistics{" +
+                "parseNanos=" + parseNanos +
+                ", totalNanos=" + totalNanos +
+                ", elementCount=" + elementCount +
+                ", attributeCount=" + attributeCount +
+                ", textNodeCount=" + textNodeCount +
+                ", textBytes=" + textBytes +
+                ", maxDepth=" + maxDepth +
+                ", typeConversionCount=" + typeConversionCount +
+                ", typeConversionNanos=" + typeConversionNanos +
+                ", nestedElementsNanos=" + nestedElementsNanos +
+                '}';
+    }
+}
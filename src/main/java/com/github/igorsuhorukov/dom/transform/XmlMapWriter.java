@@ -0,0 +1,220 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Serialize map to XML text following {@link DomTransformer#transform(Map)} rules without creating DOM nodes
+ */
+class XmlMapWriter {
+
+    static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    private static final String XMLNS = "xmlns";
+    /**
+     * DOM keeps attributes ordered by name, serializer writes namespace declarations first
+     */
+    static final Comparator<String> ATTRIBUTE_ORDER = Comparator.<String, Boolean>comparing(name -> !name.startsWith(XMLNS)).
+            thenComparing(Comparator.naturalOrder());
+
+    private final DomTransformer domTransformer;
+
+    XmlMapWriter(DomTransformer domTransformer) {
+        this.domTransformer = domTransformer;
+    }
+
+    /**
+     * Elements are written with explicit stack of content iterators instead of recursion, so depth of map is limited
+     * by heap only
+     */
+    void write(Map<String, Object> objectMap, XmlOutput output) throws IOException {
+        if(objectMap.size()!=1){
+            throw new IllegalArgumentException("map size must be 1");
+        }
+        Map.Entry<String, Object> entry = objectMap.entrySet().iterator().next();
+        if(domTransformer.getAttributeResolver().isAttribute(entry.getKey())){
+            throw new IllegalArgumentException("attribute "+entry.getKey()+" can't be transformed to XML document");
+        }
+        output.append(XML_DECLARATION);
+        Deque<ContentFrame> frames = new ArrayDeque<>();
+        writeStartElement(output, entry.getKey(), entry.getValue(), frames);
+        while (!frames.isEmpty()){
+            ContentFrame frame = frames.peek();
+            if(!frame.items.hasNext()){
+                frames.pop();
+                if(frame.elementName!=null){
+                    writeEndElement(frame.content, frame.elementName);
+                }
+                continue;
+            }
+            Object item = frame.items.next();
+            if(frame.kind==ContentFrame.LIST){
+                if(item instanceof Map){
+                    frames.push(new ContentFrame(ContentFrame.MAP, ((Map<?, ?>) item).entrySet().iterator(),
+                            frame.content, null, null));
+                } else {
+                    frame.content.writeText(getText(frame.name, item));
+                }
+            } else if(frame.kind==ContentFrame.COLLECTION){
+                writeCollectionItem(frame.content, frame.name, item, frames);
+            } else {
+                Map.Entry<?, ?> mapEntry = (Map.Entry<?, ?>) item;
+                writeEntry(frame.content, (String) mapEntry.getKey(), mapEntry.getValue(), frames);
+            }
+        }
+    }
+
+    /**
+     * Write start tag and push content of element, element without List or Map content is written completely
+     */
+    @SuppressWarnings("unchecked")
+    private void writeStartElement(XmlOutput output, String objectName, Object value, Deque<ContentFrame> frames) throws IOException {
+        String elementName = checkName(domTransformer.getNameCache().encode(objectName));
+        Map<String, String> attributes = new TreeMap<>(ATTRIBUTE_ORDER);
+        if(value instanceof List){
+            for(Object item : (List<?>) value){
+                if(item instanceof Map){
+                    collectAttributes(attributes, (Map<String, Object>) item);
+                }
+            }
+        } else if(value instanceof Map){
+            collectAttributes(attributes, (Map<String, Object>) value);
+        }
+        output.append('<');
+        output.append(elementName);
+        for(Map.Entry<String, String> attribute: attributes.entrySet()){
+            output.append(' ');
+            output.append(attribute.getKey());
+            output.append("=\"");
+            output.appendAttributeValue(attribute.getValue());
+            output.append('"');
+        }
+        ElementContent content = new ElementContent(output);
+        if (value instanceof List) {
+            frames.push(new ContentFrame(ContentFrame.LIST, ((List<?>) value).iterator(), content, objectName, elementName));
+            return;
+        }
+        if (value instanceof Map) {
+            frames.push(new ContentFrame(ContentFrame.MAP, ((Map<?, ?>) value).entrySet().iterator(), content, null, elementName));
+            return;
+        }
+        if(value!=null) {
+            content.writeText(value.toString());
+        }
+        writeEndElement(content, elementName);
+    }
+
+    private static void writeEndElement(ElementContent content, String elementName) throws IOException {
+        if(content.startTagClosed){
+            content.output.append("</");
+            content.output.append(elementName);
+            content.output.append('>');
+        } else {
+            content.output.append("/>");
+        }
+    }
+
+    private void collectAttributes(Map<String, String> attributes, Map<String, Object> values) {
+        for(Map.Entry<String, Object> entry: values.entrySet()){
+            Object value = entry.getValue();
+            if(!(value instanceof Collection) && !domTransformer.getValueName().equals(entry.getKey()) &&
+                    domTransformer.getAttributeResolver().isAttribute(entry.getKey())){
+                if(value instanceof Map){
+                    throw new IllegalArgumentException("invalid attribute "+entry.getKey()+" content: "+value.toString());
+                }
+                attributes.put(checkName(domTransformer.getNameCache().encodeAttribute(entry.getKey())),
+                        getText(entry.getKey(), value));
+            }
+        }
+    }
+
+    private void writeEntry(ElementContent content, String key, Object value, Deque<ContentFrame> frames) throws IOException {
+        if(value instanceof Collection){
+            frames.push(new ContentFrame(ContentFrame.COLLECTION, ((Collection<?>) value).iterator(), content, key, null));
+        } else if (domTransformer.getValueName().equals(key)) {
+            content.writeText(getText(key, value));
+        } else if (!domTransformer.getAttributeResolver().isAttribute(key)) {
+            content.closeStartTag();
+            writeStartElement(content.output, key, value, frames);
+        }
+    }
+
+    private void writeCollectionItem(ElementContent content, String key, Object item, Deque<ContentFrame> frames) throws IOException {
+        if(item instanceof Map && domTransformer.getAttributeResolver().isAttribute(key)){
+            throw new IllegalArgumentException("invalid attribute "+key+" content: "+item.toString());
+        }
+        if(item instanceof Map){
+            content.closeStartTag();
+            writeStartElement(content.output, key, item, frames);
+        } else if(item!=null){
+            content.closeStartTag();
+            writeStartElement(content.output, key, item.toString(), frames);
+        }
+    }
+
+    private static String getText(String objectName, Object value) {
+        if(value==null){
+            throw new IllegalArgumentException("null value of "+objectName);
+        }
+        return value.toString();
+    }
+
+    private static String checkName(String encodedName) {
+        if(encodedName.isEmpty()){
+            throw new IllegalArgumentException("empty XML name");
+        }
+        return encodedName;
+    }
+
+    /**
+     * Iterator over list items of element value, entries of map or items of collection value of map entry.
+     * Element name is set for frame which completes element.
+     */
+    private static class ContentFrame {
+        private static final int MAP = 0;
+        private static final int COLLECTION = 1;
+        private static final int LIST = 2;
+
+        private final int kind;
+        private final Iterator<?> items;
+        private final ElementContent content;
+        private final String name;
+        private final String elementName;
+
+        /**
+         * @param name object name of list items or map key of collection items, used in error messages and as item element name
+         */
+        private ContentFrame(int kind, Iterator<?> items, ElementContent content, String name, String elementName) {
+            this.kind = kind;
+            this.items = items;
+            this.content = content;
+            this.name = name;
+            this.elementName = elementName;
+        }
+    }
+
+    /**
+     * Start tag is closed lazily: element without non empty content is written as empty element tag
+     */
+    private static class ElementContent {
+        private final XmlOutput output;
+        private boolean startTagClosed;
+
+        private ElementContent(XmlOutput output) {
+            this.output = output;
+        }
+
+        private void closeStartTag() throws IOException {
+            if(!startTagClosed){
+                output.append('>');
+                startTagClosed = true;
+            }
+        }
+
+        private void writeText(String text) throws IOException {
+            if(!text.isEmpty()){
+                closeStartTag();
+                output.appendText(text);
+            }
+        }
+    }
+}
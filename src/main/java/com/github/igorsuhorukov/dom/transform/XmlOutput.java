@@ -0,0 +1,171 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Reusable per-thread character buffer with XML escaping. Escaping follows JDK identity transformer rules,
+ * so output is the same as serialization of DOM with {@link javax.xml.transform.Transformer}.
+ * Characters are written to {@link Writer} or encoded as UTF-8 into {@link OutputStream}.
+ */
+class XmlOutput {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final ThreadLocal<XmlOutput> OUTPUT = ThreadLocal.withInitial(XmlOutput::new);
+
+    private final char[] chars = new char[BUFFER_SIZE];
+    private final byte[] bytes = new byte[BUFFER_SIZE * 3];
+    private int position;
+    private Writer writer;
+    private OutputStream outputStream;
+    private boolean inUse;
+
+    static XmlOutput acquire(Writer writer) {
+        XmlOutput output = acquire();
+        output.writer = writer;
+        return output;
+    }
+
+    static XmlOutput acquire(OutputStream outputStream) {
+        XmlOutput output = acquire();
+        output.outputStream = outputStream;
+        return output;
+    }
+
+    private static XmlOutput acquire() {
+        XmlOutput output = OUTPUT.get();
+        if(output.inUse){
+            output = new XmlOutput();
+        }
+        output.inUse = true;
+        return output;
+    }
+
+    /**
+     * Write buffered characters to target, target itself is not flushed
+     */
+    void flush() throws IOException {
+        if(writer!=null){
+            writer.write(chars, 0, position);
+        } else if(outputStream!=null){
+            outputStream.write(bytes, 0, encodeUtf8());
+        }
+        position = 0;
+    }
+
+    /**
+     * Detach from target and discard not flushed characters
+     */
+    void release() {
+        position = 0;
+        writer = null;
+        outputStream = null;
+        inUse = false;
+    }
+
+    void append(char symbol) throws IOException {
+        if(position==chars.length){
+            flush();
+        }
+        chars[position++] = symbol;
+    }
+
+    void append(String text) throws IOException {
+        int offset = 0;
+        while (offset < text.length()){
+            if(position==chars.length){
+                flush();
+            }
+            int length = Math.min(chars.length - position, text.length() - offset);
+            text.getChars(offset, offset + length, chars, position);
+            position += length;
+            offset += length;
+        }
+    }
+
+    void appendText(String text) throws IOException {
+        for(int i = 0; i < text.length(); i++){
+            char symbol = text.charAt(i);
+            switch (symbol){
+                case '&': append("&amp;"); break;
+                case '<': append("&lt;"); break;
+                case '>': append("&gt;"); break;
+                case '\t':
+                case '\n': append(symbol); break;
+                default:
+                    if(symbol < 0x20 || (symbol >= 0x7F && symbol <= 0x9F)){
+                        appendCharacterReference(symbol);
+                    } else if(Character.isSurrogate(symbol)){
+                        i = appendSurrogate(text, i);
+                    } else {
+                        append(symbol);
+                    }
+            }
+        }
+    }
+
+    void appendAttributeValue(String value) throws IOException {
+        for(int i = 0; i < value.length(); i++){
+            char symbol = value.charAt(i);
+            switch (symbol){
+                case '&': append("&amp;"); break;
+                case '<': append("&lt;"); break;
+                case '>': append("&gt;"); break;
+                case '"': append("&quot;"); break;
+                default:
+                    if(symbol < 0x20){
+                        appendCharacterReference(symbol);
+                    } else if(Character.isSurrogate(symbol)){
+                        i = appendSurrogate(value, i);
+                    } else {
+                        append(symbol);
+                    }
+            }
+        }
+    }
+
+    private int appendSurrogate(String text, int index) throws IOException {
+        char symbol = text.charAt(index);
+        if(Character.isLowSurrogate(symbol)){
+            appendCharacterReference(symbol);
+            return index;
+        }
+        if(index + 1 == text.length()){
+            return index;
+        }
+        char lowSurrogate = text.charAt(index + 1);
+        if(!Character.isLowSurrogate(lowSurrogate)){
+            throw new IllegalArgumentException(String.format("Invalid UTF-16 surrogate detected: %x %x", (int) symbol, (int) lowSurrogate));
+        }
+        appendCharacterReference(Character.toCodePoint(symbol, lowSurrogate));
+        return index + 1;
+    }
+
+    private void appendCharacterReference(int codePoint) throws IOException {
+        append("&#");
+        append(Integer.toString(codePoint));
+        append(';');
+    }
+
+    /**
+     * Escaping replaces all surrogates with character references, so only BMP characters are encoded here
+     */
+    private int encodeUtf8() {
+        int length = 0;
+        for(int i = 0; i < position; i++){
+            char symbol = chars[i];
+            if(symbol < 0x80){
+                bytes[length++] = (byte) symbol;
+            } else if(symbol < 0x800){
+                bytes[length++] = (byte) (0xC0 | (symbol >> 6));
+                bytes[length++] = (byte) (0x80 | (symbol & 0x3F));
+            } else {
+                bytes[length++] = (byte) (0xE0 | (symbol >> 12));
+                bytes[length++] = (byte) (0x80 | ((symbol >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (symbol & 0x3F));
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.igorsuhorukov.dom.transform.converter;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoize conversion results of short string values in bounded lock free direct mapped table: value colliding
+ * with cached one in the same slot replaces it. Repeated values share the same result instance, so delegate
+ * must return immutable objects.
+ */
+public class CachingTypeConverter implements TypeConverter{
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int DEFAULT_MAX_VALUE_LENGTH = 32;
+
+    private final TypeConverter typeConverter;
+    private final int maxValueLength;
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    public CachingTypeConverter(TypeConverter typeConverter) {
+        this(typeConverter, DEFAULT_CAPACITY, DEFAULT_MAX_VALUE_LENGTH);
+    }
+
+    /**
+     * @param capacity table size, rounded up to power of two
+     * @param maxValueLength longer strings are converted without caching
+     */
+    public CachingTypeConverter(TypeConverter typeConverter, int capacity, int maxValueLength) {
+        if(typeConverter==null){
+            throw new IllegalArgumentException("typeConverter is null");
+        }
+        if(capacity <= 0 || capacity > 1 << 30){
+            throw new IllegalArgumentException("invalid capacity "+capacity);
+        }
+        this.typeConverter = typeConverter;
+        this.maxValueLength = maxValueLength;
+        int tableSize = Integer.highestOneBit(capacity);
+        if(tableSize < capacity){
+            tableSize <<= 1;
+        }
+        this.entries = new AtomicReferenceArray<>(tableSize);
+        this.mask = tableSize - 1;
+    }
+
+    public Object transform(Object srcData) {
+        if(!(srcData instanceof String) || ((String) srcData).length() > maxValueLength){
+            return typeConverter.transform(srcData);
+        }
+        String value = (String) srcData;
+        int hash = value.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mask;
+        Entry entry = entries.get(index);
+        if(entry!=null && entry.hash==hash && entry.value.equals(value)){
+            hitCount.increment();
+            return entry.result;
+        }
+        missCount.increment();
+        Object result = typeConverter.transform(value);
+        entries.lazySet(index, new Entry(hash, value, result));
+        return result;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public void clear() {
+        for(int i = 0; i < entries.length(); i++){
+            entries.set(i, null);
+        }
+    }
+
+    private static class Entry {
+        private final int hash;
+        private final String value;
+        private final Object result;
+
+        private Entry(int hash, String value, Object result) {
+            this.hash = hash;
+            this.value = value;
+            this.result = result;
+        }
+    }
+}
@@ -2,38 +2,132 @@ package com.github.igorsuhorukov.dom.transform.converter;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.function.Function;
-import java.util.regex.Pattern;
 
+/**
+ * Detects boolean and number values in text with single pass scanner. Accepted forms are
+ * <code>true|TRUE|false|FALSE</code>, integer <code>[+-]?\d+</code> and decimal <code>[+-]?(\d*[.])?\d+</code>,
+ * other strings are returned as is.
+ */
 public class TypeAutoDetect implements TypeConverter{
 
-    private static final Pattern INTEGER_NUMBER = Pattern.compile("[+-]?\\d+");
-    private static final Pattern BOOLEAN = Pattern.compile("true|TRUE|false|FALSE");
-    private static final Pattern REAL_NUMBER = Pattern.compile("[+-]?(\\d*[.])?\\d+");
-    private static final Collection<ContentMatcher> MATCHERS= Arrays.asList(
-            new ContentMatcher(BOOLEAN, Boolean::parseBoolean),
-            new ContentMatcher(INTEGER_NUMBER, BigInteger::new),
-            new ContentMatcher(REAL_NUMBER, BigDecimal::new));
+    public enum NumberPolicy {
+        /**
+         * Integer values as {@link BigInteger}, decimal values as {@link BigDecimal}
+         */
+        BIG_NUMBERS,
+        /**
+         * {@link Long} for integers in long range, {@link Double} for decimals with at most 15 significant digits
+         * which survive round trip through double, {@link BigInteger}/{@link BigDecimal} otherwise
+         */
+        PRIMITIVE_WHEN_EXACT
+    }
 
-    private static class ContentMatcher {
-        private Pattern matcher;
-        private Function<String, Object> function;
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final int MAX_DOUBLE_DIGITS = 15;
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
 
-        private ContentMatcher(Pattern matcher, Function<String, Object> function) {
-            this.matcher = matcher;
-            this.function = function;
-        }
+    private final NumberPolicy numberPolicy;
+
+    public TypeAutoDetect() {
+        this(NumberPolicy.BIG_NUMBERS);
+    }
+
+    public TypeAutoDetect(NumberPolicy numberPolicy) {
+        this.numberPolicy = numberPolicy;
     }
 
     public Object transform(Object srcData){
         if(srcData instanceof String){
-            String data = (String) srcData;
-            return MATCHERS.stream().filter(matcher1 -> matcher1.matcher.matcher(data).matches()).findFirst().
-                    map(matcher -> matcher.function.apply(data)).orElse(data);
+            return detect((String) srcData);
         } else {
             return srcData;
         }
     }
+
+    private Object detect(String data) {
+        int length = data.length();
+        if(length==0){
+            return data;
+        }
+        char first = data.charAt(0);
+        if(first=='t' || first=='T' || first=='f' || first=='F'){
+            return detectBoolean(data);
+        }
+        int index = first=='+' || first=='-' ? 1 : 0;
+        if(index==length){
+            return data;
+        }
+        long unscaledValue = 0;
+        int significantDigits = 0;
+        int scale = -1;
+        for(; index < length; index++){
+            char symbol = data.charAt(index);
+            if(symbol >= '0' && symbol <= '9'){
+                if(significantDigits > 0 || symbol != '0'){
+                    significantDigits++;
+                    if(significantDigits <= MAX_LONG_DIGITS){
+                        unscaledValue = unscaledValue * 10 + (symbol - '0');
+                    }
+                }
+                if(scale >= 0){
+                    scale++;
+                }
+            } else if(symbol=='.' && scale < 0){
+                scale = 0;
+            } else {
+                return data;
+            }
+        }
+        if(scale==0){
+            return data;
+        }
+        long signedValue = first=='-' ? -unscaledValue : unscaledValue;
+        if(scale < 0){
+            return toInteger(data, signedValue, significantDigits);
+        } else {
+            return toDecimal(data, signedValue, scale, significantDigits);
+        }
+    }
+
+    private static Object detectBoolean(String data) {
+        switch (data){
+            case "true":
+            case "TRUE":
+                return Boolean.TRUE;
+            case "false":
+            case "FALSE":
+                return Boolean.FALSE;
+            default:
+                return data;
+        }
+    }
+
+    private Object toInteger(String data, long signedValue, int significantDigits) {
+        if(significantDigits <= MAX_LONG_DIGITS){
+            return numberPolicy==NumberPolicy.PRIMITIVE_WHEN_EXACT ? (Object) signedValue : BigInteger.valueOf(signedValue);
+        }
+        BigInteger value = new BigInteger(data);
+        if(numberPolicy==NumberPolicy.PRIMITIVE_WHEN_EXACT && value.bitLength() < Long.SIZE){
+            return value.longValue();
+        }
+        return value;
+    }
+
+    private Object toDecimal(String data, long signedValue, int scale, int significantDigits) {
+        if(numberPolicy==NumberPolicy.PRIMITIVE_WHEN_EXACT && significantDigits <= MAX_DOUBLE_DIGITS){
+            if(scale < POWERS_OF_TEN.length && Math.abs(signedValue) <= MAX_EXACT_DOUBLE){
+                //both operands are exact doubles, so division is correctly rounded like Double.parseDouble
+                double value = Math.abs(signedValue) / POWERS_OF_TEN[scale];
+                return data.charAt(0)=='-' ? -value : value;
+            }
+            return Double.parseDouble(data);
+        }
+        if(significantDigits <= MAX_LONG_DIGITS){
+            return BigDecimal.valueOf(signedValue, scale);
+        }
+        return new BigDecimal(data);
+    }
 }
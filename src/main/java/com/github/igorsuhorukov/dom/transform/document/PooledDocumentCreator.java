@@ -0,0 +1,99 @@
+package com.github.igorsuhorukov.dom.transform.document;
+
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keep document builders in bounded lock free pool instead of thread local, so short living and virtual threads reuse
+ * them and idle threads don't retain them. Builder is created when pool is empty and dropped when pool is full.
+ */
+public class PooledDocumentCreator implements DocumentCreator {
+
+    private final DocumentBuilderFactory documentBuilderFactory;
+    private final AtomicReferenceArray<DocumentBuilder> documentBuilders;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder dropCount = new LongAdder();
+
+    public PooledDocumentCreator() {
+        this(DocumentBuilderFactory.newInstance(), Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public PooledDocumentCreator(DocumentBuilderFactory documentBuilderFactory, int capacity) {
+        if(capacity < 1){
+            throw new IllegalArgumentException("capacity must be positive: "+capacity);
+        }
+        this.documentBuilderFactory = documentBuilderFactory;
+        this.documentBuilders = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public Document newDocument() {
+        DocumentBuilder documentBuilder = borrow();
+        try {
+            return documentBuilder.newDocument();
+        } finally {
+            release(documentBuilder);
+        }
+    }
+
+    /**
+     * @return builder from pool or new one, it must be given back by {@link #release(DocumentBuilder)}
+     */
+    public DocumentBuilder borrow() {
+        int capacity = documentBuilders.length();
+        int start = ThreadLocalRandom.current().nextInt(capacity);
+        for(int i = 0; i < capacity; i++){
+            int index = (start + i) % capacity;
+            if(documentBuilders.get(index)!=null){
+                DocumentBuilder documentBuilder = documentBuilders.getAndSet(index, null);
+                if(documentBuilder!=null){
+                    hitCount.increment();
+                    return documentBuilder;
+                }
+            }
+        }
+        missCount.increment();
+        try {
+            //factory is not required to be thread safe
+            synchronized (documentBuilderFactory){
+                return documentBuilderFactory.newDocumentBuilder();
+            }
+        } catch (ParserConfigurationException e) {
+            throw new UnsupportedOperationException(e);
+        }
+    }
+
+    public void release(DocumentBuilder documentBuilder) {
+        documentBuilder.reset();
+        int capacity = documentBuilders.length();
+        int start = ThreadLocalRandom.current().nextInt(capacity);
+        for(int i = 0; i < capacity; i++){
+            if(documentBuilders.compareAndSet((start + i) % capacity, null, documentBuilder)){
+                return;
+            }
+        }
+        dropCount.increment();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return number of returned builders dropped because pool was full
+     */
+    public long getDropCount() {
+        return dropCount.sum();
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.igorsuhorukov.dom.transform.profile;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Element statistics of document corpus by root element name, see {@link ShapeInference}
+ */
+public class CorpusStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long documentCount;
+    private final Map<String, ElementStatistics> roots = new TreeMap<>();
+
+    ElementStatistics addDocument(String rootName) {
+        documentCount++;
+        ElementStatistics statistics = roots.computeIfAbsent(rootName, name -> new ElementStatistics());
+        statistics.addOccurrences(1);
+        return statistics;
+    }
+
+    public void merge(CorpusStatistics other) {
+        documentCount += other.documentCount;
+        other.roots.forEach((name, statistics) ->
+                roots.computeIfAbsent(name, rootName -> new ElementStatistics()).merge(statistics));
+    }
+
+    public long getDocumentCount() {
+        return documentCount;
+    }
+
+    public Map<String, ElementStatistics> getRoots() {
+        return Collections.unmodifiableMap(roots);
+    }
+
+    public ShapeProfile toProfile() {
+        ShapeProfile profile = new ShapeProfile();
+        roots.forEach((name, statistics) -> profile.addRoot(name, statistics.toShape()));
+        return profile;
+    }
+}
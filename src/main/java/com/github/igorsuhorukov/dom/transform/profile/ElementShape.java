@@ -0,0 +1,72 @@
+package com.github.igorsuhorukov.dom.transform.profile;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Expected content of element: type of text, nested elements and attribute types. Nested element is declared as
+ * repeated when it is converted to list even for single occurrence. Names are the same as node names in document.
+ * Shapes may be shared between elements and refer to themselves for recursive content.
+ */
+public class ElementShape implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ScalarType textType;
+    private final Map<String, ElementShape> elements = new LinkedHashMap<>();
+    private final Set<String> repeatedElements = new HashSet<>();
+    private final Map<String, ScalarType> attributes = new LinkedHashMap<>();
+
+    /**
+     * Element without text content
+     */
+    public ElementShape() {
+        this(null);
+    }
+
+    /**
+     * @param textType type of text content, null when element has no text content
+     */
+    public ElementShape(ScalarType textType) {
+        this.textType = textType;
+    }
+
+    public ElementShape addElement(String name, ElementShape shape, boolean repeated) {
+        elements.put(name, shape);
+        if(repeated){
+            repeatedElements.add(name);
+        } else {
+            repeatedElements.remove(name);
+        }
+        return this;
+    }
+
+    public ElementShape addAttribute(String name, ScalarType type) {
+        attributes.put(name, type);
+        return this;
+    }
+
+    public ScalarType getTextType() {
+        return textType;
+    }
+
+    public boolean hasText() {
+        return textType!=null;
+    }
+
+    public ElementShape getElement(String name) {
+        return elements.get(name);
+    }
+
+    public boolean isRepeated(String name) {
+        return repeatedElements.contains(name);
+    }
+
+    public Set<String> getElementNames() {
+        return Collections.unmodifiableSet(elements.keySet());
+    }
+
+    public Map<String, ScalarType> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+}
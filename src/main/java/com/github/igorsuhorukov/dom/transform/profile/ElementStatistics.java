@@ -0,0 +1,88 @@
+package com.github.igorsuhorukov.dom.transform.profile;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Statistics of element on one path in documents: occurrences, maximum occurrences in the same parent, text and
+ * attribute values and nested elements. Statistics collected in parallel are combined by {@link #merge}, result
+ * doesn't depend on merge order.
+ */
+public class ElementStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long count;
+    private long maxOccurrences;
+    private final ValueStatistics text = new ValueStatistics();
+    private final Map<String, ValueStatistics> attributes = new TreeMap<>();
+    private final Map<String, ElementStatistics> elements = new TreeMap<>();
+
+    void addOccurrence() {
+        count++;
+    }
+
+    void addOccurrences(long occurrences) {
+        maxOccurrences = Math.max(maxOccurrences, occurrences);
+    }
+
+    void addText(String value) {
+        text.add(value);
+    }
+
+    void addAttribute(String name, String value) {
+        attributes.computeIfAbsent(name, attributeName -> new ValueStatistics()).add(value);
+    }
+
+    ElementStatistics getOrAddElement(String name) {
+        return elements.computeIfAbsent(name, elementName -> new ElementStatistics());
+    }
+
+    public void merge(ElementStatistics other) {
+        count += other.count;
+        maxOccurrences = Math.max(maxOccurrences, other.maxOccurrences);
+        text.merge(other.text);
+        other.attributes.forEach((name, statistics) ->
+                attributes.computeIfAbsent(name, attributeName -> new ValueStatistics()).merge(statistics));
+        other.elements.forEach((name, statistics) -> getOrAddElement(name).merge(statistics));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return maximum number of occurrences of element in one parent element
+     */
+    public long getMaxOccurrences() {
+        return maxOccurrences;
+    }
+
+    /**
+     * @return statistics of text which is not whitespace only
+     */
+    public ValueStatistics getText() {
+        return text;
+    }
+
+    public Map<String, ValueStatistics> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    public Map<String, ElementStatistics> getElements() {
+        return Collections.unmodifiableMap(elements);
+    }
+
+    /**
+     * @return shape with text when text was observed, nested element is repeated when it occurred several times
+     * in the same parent at least once
+     */
+    public ElementShape toShape() {
+        ElementShape shape = new ElementShape(text.getCount() > 0 ? text.getScalarType() : null);
+        attributes.forEach((name, statistics) -> shape.addAttribute(name, statistics.getScalarType()));
+        elements.forEach((name, statistics) -> shape.addElement(name, statistics.toShape(), statistics.maxOccurrences > 1));
+        return shape;
+    }
+}
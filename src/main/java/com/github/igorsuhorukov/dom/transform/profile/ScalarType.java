@@ -0,0 +1,82 @@
+package com.github.igorsuhorukov.dom.transform.profile;
+
+import com.github.igorsuhorukov.dom.transform.converter.TypeConverter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Type of text and attribute values declared in {@link ElementShape}. Value which can't be parsed as declared type
+ * is converted by fallback converter instead.
+ */
+public enum ScalarType {
+    /**
+     * Type is not known, value is converted by fallback converter
+     */
+    AUTO {
+        @Override
+        Object parse(String value) {
+            return null;
+        }
+    },
+    STRING {
+        @Override
+        Object parse(String value) {
+            return value;
+        }
+    },
+    BOOLEAN {
+        @Override
+        Object parse(String value) {
+            switch (value.trim()){
+                case "true":
+                case "1":
+                    return Boolean.TRUE;
+                case "false":
+                case "0":
+                    return Boolean.FALSE;
+                default:
+                    return null;
+            }
+        }
+    },
+    LONG {
+        @Override
+        Object parse(String value) {
+            return Long.parseLong(value.trim());
+        }
+    },
+    INTEGER {
+        @Override
+        Object parse(String value) {
+            return new BigInteger(value.trim());
+        }
+    },
+    DOUBLE {
+        @Override
+        Object parse(String value) {
+            return Double.parseDouble(value.trim());
+        }
+    },
+    DECIMAL {
+        @Override
+        Object parse(String value) {
+            return new BigDecimal(value.trim());
+        }
+    };
+
+    /**
+     * @return parsed value or null when value is not valid for this type
+     */
+    abstract Object parse(String value);
+
+    public Object convert(String value, TypeConverter fallback) {
+        Object result;
+        try {
+            result = parse(value);
+        } catch (NumberFormatException e) {
+            result = null;
+        }
+        return result!=null ? result : fallback.transform(value);
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.igorsuhorukov.dom.transform.profile;
+
+import com.github.igorsuhorukov.dom.transform.document.PooledDocumentCreator;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Collect {@link CorpusStatistics} of sample documents. Text is joined and trimmed the same way as in
+ * {@link com.github.igorsuhorukov.dom.transform.DomTransformer}, whitespace only text is not counted.
+ * Files are parsed in parallel stream, statistics of each worker are merged at the end.
+ */
+public class ShapeInference {
+
+    private final PooledDocumentCreator documentBuilders;
+
+    public ShapeInference() {
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setIgnoringComments(true);
+        documentBuilderFactory.setCoalescing(true);
+        this.documentBuilders = new PooledDocumentCreator(documentBuilderFactory,
+                Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * @param directory scanned recursively for files with .xml extension
+     */
+    public CorpusStatistics scan(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(directory)){
+            files = paths.filter(path -> path.getFileName().toString().endsWith(".xml")).
+                    filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        return scan(files);
+    }
+
+    public CorpusStatistics scan(Collection<Path> files) {
+        return files.parallelStream().collect(CorpusStatistics::new, this::addFile, CorpusStatistics::merge);
+    }
+
+    public void addDocument(CorpusStatistics statistics, Document document) {
+        addRoot(statistics, document.getDocumentElement());
+    }
+
+    /**
+     * Add statistics of element as root of separate document
+     */
+    public void addRoot(CorpusStatistics statistics, Node element) {
+        collect(element, statistics.addDocument(element.getNodeName()));
+    }
+
+    private void addFile(CorpusStatistics statistics, Path file) {
+        Document document;
+        DocumentBuilder documentBuilder = documentBuilders.borrow();
+        try (InputStream inputStream = Files.newInputStream(file)){
+            document = documentBuilder.parse(inputStream, file.toUri().toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SAXException e) {
+            throw new IllegalArgumentException("invalid document " + file, e);
+        } finally {
+            documentBuilders.release(documentBuilder);
+        }
+        addDocument(statistics, document);
+    }
+
+    private static void collect(Node element, ElementStatistics statistics) {
+        statistics.addOccurrence();
+        NamedNodeMap attributes = element.getAttributes();
+        for(int i = 0; i < attributes.getLength(); i++){
+            Node attribute = attributes.item(i);
+            statistics.addAttribute(attribute.getNodeName(), attribute.getNodeValue());
+        }
+        StringBuilder text = null;
+        Map<String, Integer> occurrences = null;
+        for(Node child = element.getFirstChild(); child!=null; child = child.getNextSibling()){
+            short nodeType = child.getNodeType();
+            if(nodeType==Node.TEXT_NODE || nodeType==Node.CDATA_SECTION_NODE){
+                if(text==null){
+                    text = new StringBuilder();
+                }
+                text.append(child.getNodeValue());
+            } else if(nodeType==Node.ELEMENT_NODE){
+                if(occurrences==null){
+                    occurrences = new HashMap<>();
+                }
+                occurrences.merge(child.getNodeName(), 1, Integer::sum);
+                collect(child, statistics.getOrAddElement(child.getNodeName()));
+            }
+        }
+        if(text!=null && !text.toString().trim().isEmpty()){
+            statistics.addText(text.toString().trim());
+        }
+        if(occurrences!=null){
+            occurrences.forEach((name, count) -> statistics.getOrAddElement(name).addOccurrences(count));
+        }
+    }
+}
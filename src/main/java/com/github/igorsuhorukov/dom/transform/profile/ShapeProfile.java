@@ -0,0 +1,29 @@
+package com.github.igorsuhorukov.dom.transform.profile;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shapes of document root elements, declared by hand or read from XML schema by {@link XsdProfileReader}
+ */
+public class ShapeProfile implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, ElementShape> roots = new LinkedHashMap<>();
+
+    public ShapeProfile addRoot(String name, ElementShape shape) {
+        roots.put(name, shape);
+        return this;
+    }
+
+    public ElementShape getRoot(String name) {
+        return roots.get(name);
+    }
+
+    public Map<String, ElementShape> getRoots() {
+        return Collections.unmodifiableMap(roots);
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.igorsuhorukov.dom.transform.profile;
+
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import com.github.igorsuhorukov.dom.transform.converter.TypeConverter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Number of observed text or attribute values and their types detected by {@link TypeAutoDetect} rules
+ */
+public class ValueStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final TypeConverter TYPE_DETECTOR = new TypeAutoDetect();
+    private static final Set<ScalarType> INTEGER_TYPES = EnumSet.of(ScalarType.LONG, ScalarType.INTEGER);
+    private static final Set<ScalarType> NUMBER_TYPES = EnumSet.of(ScalarType.LONG, ScalarType.INTEGER, ScalarType.DECIMAL);
+
+    private long count;
+    private final EnumSet<ScalarType> types = EnumSet.noneOf(ScalarType.class);
+
+    void add(String value) {
+        count++;
+        Object detected = TYPE_DETECTOR.transform(value);
+        if(detected instanceof Boolean){
+            types.add(ScalarType.BOOLEAN);
+        } else if(detected instanceof BigInteger){
+            types.add(((BigInteger) detected).bitLength() < Long.SIZE ? ScalarType.LONG : ScalarType.INTEGER);
+        } else if(detected instanceof BigDecimal){
+            types.add(ScalarType.DECIMAL);
+        } else {
+            types.add(ScalarType.STRING);
+        }
+    }
+
+    void merge(ValueStatistics other) {
+        count += other.count;
+        types.addAll(other.types);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Set<ScalarType> getTypes() {
+        return Collections.unmodifiableSet(types);
+    }
+
+    /**
+     * @return the narrowest type of all observed values: integers are widened to decimal, mix of other types is string
+     */
+    public ScalarType getScalarType() {
+        if(types.isEmpty()){
+            return ScalarType.AUTO;
+        }
+        if(types.size()==1){
+            return types.iterator().next();
+        }
+        if(INTEGER_TYPES.containsAll(types)){
+            return ScalarType.INTEGER;
+        }
+        if(NUMBER_TYPES.containsAll(types)){
+            return ScalarType.DECIMAL;
+        }
+        return ScalarType.STRING;
+    }
+}
@@ -0,0 +1,319 @@
+package com.github.igorsuhorukov.dom.transform.profile;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Build {@link ShapeProfile} from XML schema, global elements of schema become profile roots. Supported are named
+ * and anonymous complex types with sequence, choice, all, group and element references, attributes, attribute groups,
+ * simple and complex content derivation. Nested element is repeated when maxOccurs of the element or of enclosing
+ * model group is greater than 1 or when it is declared several times in the same content.
+ * <p/>
+ * Includes and imports are not followed. Names are taken without namespace prefix, so schema must describe documents
+ * with unprefixed element names.
+ */
+public class XsdProfileReader {
+
+    private static final String XSD_NAMESPACE = "http://www.w3.org/2001/XMLSchema";
+
+    public ShapeProfile read(InputStream inputStream) throws IOException {
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        try {
+            return read(documentBuilderFactory.newDocumentBuilder().parse(inputStream));
+        } catch (ParserConfigurationException e) {
+            throw new UnsupportedOperationException(e);
+        } catch (SAXException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * @param schema document parsed with namespace aware parser
+     */
+    public ShapeProfile read(Document schema) {
+        Element schemaElement = schema.getDocumentElement();
+        if(!isXsd(schemaElement, "schema")){
+            throw new IllegalArgumentException("not XML schema: "+schemaElement.getNodeName());
+        }
+        return new Schema(schemaElement).createProfile();
+    }
+
+    private static boolean isXsd(Node node, String localName) {
+        return node.getNodeType()==Node.ELEMENT_NODE && XSD_NAMESPACE.equals(node.getNamespaceURI())
+                && localName.equals(node.getLocalName());
+    }
+
+    private static Element firstXsdChild(Element element, String localName) {
+        for(Node child = element.getFirstChild(); child!=null; child = child.getNextSibling()){
+            if(isXsd(child, localName)){
+                return (Element) child;
+            }
+        }
+        return null;
+    }
+
+    private static String localName(String qualifiedName) {
+        return qualifiedName.substring(qualifiedName.indexOf(':') + 1);
+    }
+
+    private static boolean isRepeated(Element particle) {
+        String maxOccurs = particle.getAttribute("maxOccurs");
+        if(maxOccurs.isEmpty()){
+            return false;
+        }
+        return "unbounded".equals(maxOccurs) || Integer.parseInt(maxOccurs.trim()) > 1;
+    }
+
+    private static ScalarType builtinType(String name) {
+        switch (name){
+            case "boolean":
+                return ScalarType.BOOLEAN;
+            case "long":
+            case "int":
+            case "short":
+            case "byte":
+            case "unsignedInt":
+            case "unsignedShort":
+            case "unsignedByte":
+                return ScalarType.LONG;
+            case "integer":
+            case "nonNegativeInteger":
+            case "positiveInteger":
+            case "nonPositiveInteger":
+            case "negativeInteger":
+            case "unsignedLong":
+                return ScalarType.INTEGER;
+            case "double":
+            case "float":
+                return ScalarType.DOUBLE;
+            case "decimal":
+                return ScalarType.DECIMAL;
+            case "anyType":
+            case "anySimpleType":
+                return ScalarType.AUTO;
+            default:
+                return ScalarType.STRING;
+        }
+    }
+
+    /**
+     * Global declarations of one schema document and shapes of complex types built so far
+     */
+    private static class Schema {
+        private final Element schemaElement;
+        private final Map<String, Element> elements = new HashMap<>();
+        private final Map<String, Element> complexTypes = new HashMap<>();
+        private final Map<String, Element> simpleTypes = new HashMap<>();
+        private final Map<String, Element> groups = new HashMap<>();
+        private final Map<String, Element> attributeGroups = new HashMap<>();
+        private final Map<String, Element> attributes = new HashMap<>();
+        private final Map<Element, ElementShape> complexShapes = new IdentityHashMap<>();
+
+        private Schema(Element schemaElement) {
+            this.schemaElement = schemaElement;
+            for(Node child = schemaElement.getFirstChild(); child!=null; child = child.getNextSibling()){
+                if(child.getNodeType()==Node.ELEMENT_NODE && XSD_NAMESPACE.equals(child.getNamespaceURI())){
+                    Element declaration = (Element) child;
+                    String name = declaration.getAttribute("name");
+                    switch (declaration.getLocalName()){
+                        case "element":
+                            elements.put(name, declaration);
+                            break;
+                        case "complexType":
+                            complexTypes.put(name, declaration);
+                            break;
+                        case "simpleType":
+                            simpleTypes.put(name, declaration);
+                            break;
+                        case "group":
+                            groups.put(name, declaration);
+                            break;
+                        case "attributeGroup":
+                            attributeGroups.put(name, declaration);
+                            break;
+                        case "attribute":
+                            attributes.put(name, declaration);
+                            break;
+                    }
+                }
+            }
+        }
+
+        private ShapeProfile createProfile() {
+            ShapeProfile profile = new ShapeProfile();
+            for(Node child = schemaElement.getFirstChild(); child!=null; child = child.getNextSibling()){
+                if(isXsd(child, "element")){
+                    Element declaration = (Element) child;
+                    profile.addRoot(declaration.getAttribute("name"), elementShape(declaration));
+                }
+            }
+            return profile;
+        }
+
+        private ElementShape elementShape(Element declaration) {
+            if(declaration.hasAttribute("ref")){
+                return elementShape(getDeclaration(elements, declaration.getAttribute("ref")));
+            }
+            if(declaration.hasAttribute("type")){
+                String type = declaration.getAttribute("type");
+                Element complexType = isBuiltin(declaration, type) ? null : complexTypes.get(localName(type));
+                if(complexType!=null){
+                    return complexShape(complexType);
+                }
+                return new ElementShape(simpleType(declaration, type));
+            }
+            Element complexType = firstXsdChild(declaration, "complexType");
+            if(complexType!=null){
+                return complexShape(complexType);
+            }
+            Element simpleType = firstXsdChild(declaration, "simpleType");
+            return new ElementShape(simpleType!=null ? simpleType(simpleType) : ScalarType.AUTO);
+        }
+
+        private ElementShape complexShape(Element complexType) {
+            ElementShape shape = complexShapes.get(complexType);
+            if(shape!=null){
+                return shape;
+            }
+            Element simpleContent = firstXsdChild(complexType, "simpleContent");
+            Element complexContent = firstXsdChild(complexType, "complexContent");
+            Element derivation = derivation(simpleContent!=null ? simpleContent : complexContent);
+            ElementShape baseShape = null;
+            if(derivation!=null && !isBuiltin(derivation, derivation.getAttribute("base"))){
+                Element baseType = complexTypes.get(localName(derivation.getAttribute("base")));
+                if(baseType!=null){
+                    baseShape = complexShape(baseType);
+                }
+            }
+            ScalarType textType = null;
+            if(Boolean.parseBoolean(complexType.getAttribute("mixed")) ||
+                    (complexContent!=null && Boolean.parseBoolean(complexContent.getAttribute("mixed")))){
+                textType = ScalarType.AUTO;
+            } else if(simpleContent!=null && derivation!=null){
+                textType = baseShape!=null ? baseShape.getTextType() : simpleType(derivation, derivation.getAttribute("base"));
+            } else if(baseShape!=null){
+                textType = baseShape.getTextType();
+            }
+            shape = new ElementShape(textType);
+            complexShapes.put(complexType, shape);
+            if(baseShape!=null){
+                baseShape.getAttributes().forEach(shape::addAttribute);
+                if(complexContent!=null && "extension".equals(derivation.getLocalName())){
+                    for(String name: baseShape.getElementNames()){
+                        shape.addElement(name, baseShape.getElement(name), baseShape.isRepeated(name));
+                    }
+                }
+            }
+            addContent(shape, derivation!=null ? derivation : complexType, false);
+            return shape;
+        }
+
+        private static Element derivation(Element content) {
+            if(content==null){
+                return null;
+            }
+            Element extension = firstXsdChild(content, "extension");
+            return extension!=null ? extension : firstXsdChild(content, "restriction");
+        }
+
+        private void addContent(ElementShape shape, Element content, boolean repeated) {
+            for(Node child = content.getFirstChild(); child!=null; child = child.getNextSibling()){
+                if(child.getNodeType()!=Node.ELEMENT_NODE || !XSD_NAMESPACE.equals(child.getNamespaceURI())){
+                    continue;
+                }
+                Element particle = (Element) child;
+                switch (particle.getLocalName()){
+                    case "element":
+                        String name = particle.hasAttribute("ref") ? localName(particle.getAttribute("ref")) :
+                                particle.getAttribute("name");
+                        shape.addElement(name, elementShape(particle),
+                                repeated || isRepeated(particle) || shape.getElement(name)!=null);
+                        break;
+                    case "sequence":
+                    case "choice":
+                    case "all":
+                        addContent(shape, particle, repeated || isRepeated(particle));
+                        break;
+                    case "group":
+                        addContent(shape, getDeclaration(groups, particle.getAttribute("ref")),
+                                repeated || isRepeated(particle));
+                        break;
+                    case "attribute":
+                        addAttribute(shape, particle);
+                        break;
+                    case "attributeGroup":
+                        addContent(shape, getDeclaration(attributeGroups, particle.getAttribute("ref")), repeated);
+                        break;
+                }
+            }
+        }
+
+        private void addAttribute(ElementShape shape, Element attribute) {
+            if("prohibited".equals(attribute.getAttribute("use"))){
+                return;
+            }
+            if(attribute.hasAttribute("ref")){
+                String ref = attribute.getAttribute("ref");
+                Element declaration = attributes.get(localName(ref));
+                //attributes of xml namespace keep prefix in document
+                shape.addAttribute(ref.startsWith("xml:") ? ref : localName(ref),
+                        declaration!=null ? attributeType(declaration) : ScalarType.STRING);
+            } else {
+                shape.addAttribute(attribute.getAttribute("name"), attributeType(attribute));
+            }
+        }
+
+        private ScalarType attributeType(Element attribute) {
+            if(attribute.hasAttribute("type")){
+                return simpleType(attribute, attribute.getAttribute("type"));
+            }
+            Element simpleType = firstXsdChild(attribute, "simpleType");
+            return simpleType!=null ? simpleType(simpleType) : ScalarType.AUTO;
+        }
+
+        private ScalarType simpleType(Element context, String type) {
+            if(isBuiltin(context, type)){
+                return builtinType(localName(type));
+            }
+            Element simpleType = simpleTypes.get(localName(type));
+            return simpleType!=null ? simpleType(simpleType) : ScalarType.AUTO;
+        }
+
+        private ScalarType simpleType(Element simpleType) {
+            Element restriction = firstXsdChild(simpleType, "restriction");
+            if(restriction!=null){
+                if(restriction.hasAttribute("base")){
+                    return simpleType(restriction, restriction.getAttribute("base"));
+                }
+                Element baseType = firstXsdChild(restriction, "simpleType");
+                return baseType!=null ? simpleType(baseType) : ScalarType.AUTO;
+            }
+            return firstXsdChild(simpleType, "list")!=null ? ScalarType.STRING : ScalarType.AUTO;
+        }
+
+        private static boolean isBuiltin(Element context, String type) {
+            int separator = type.indexOf(':');
+            String namespace = context.lookupNamespaceURI(separator > 0 ? type.substring(0, separator) : null);
+            return XSD_NAMESPACE.equals(namespace);
+        }
+
+        private static Element getDeclaration(Map<String, Element> declarations, String name) {
+            Element declaration = declarations.get(localName(name));
+            if(declaration==null){
+                throw new IllegalArgumentException("global declaration not found: "+name);
+            }
+            return declaration;
+        }
+    }
+}
@@ -16,9 +16,6 @@
  */
 package org.apache.jackrabbit.util;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Implements the encode and decode routines as specified for XML name to SQL
  * identifier conversion in ISO 9075-14:2003.<br/>
@@ -30,14 +27,28 @@ public class ISO9075 {
     /** Hidden constructor. */
     private ISO9075() { }
 
-    /** Pattern on an encoded character */
-    private static final Pattern ENCODE_PATTERN = Pattern.compile("_x\\p{XDigit}{4}_");
+    /** Length of encoded character '_xHHHH_' */
+    private static final int ENCODED_LENGTH = 7;
+
+    /** Lower case hex digits used for encoding */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** Value of ASCII hex digit or -1 */
+    private static final byte[] HEX_VALUES = new byte[128];
 
-    /** Padding characters */
-    private static final char[] PADDING = new char[] {'0', '0', '0'};
+    /** ASCII name start characters */
+    private static final boolean[] ASCII_NAME_START = new boolean[128];
 
-    /** All the possible hex digits */
-    private static final String HEX_DIGITS = "0123456789abcdefABCDEF";
+    /** ASCII name characters */
+    private static final boolean[] ASCII_NAME = new boolean[128];
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            HEX_VALUES[c] = (byte) Character.digit(c, 16);
+            ASCII_NAME_START[c] = XMLChar.isNameStart(c);
+            ASCII_NAME[c] = XMLChar.isName(c);
+        }
+    }
 
     /**
      * Encodes <code>name</code> as specified in ISO 9075.
@@ -46,43 +57,53 @@ public class ISO9075 {
      *   not need encoding.
      */
     public static String encode(String name) {
-        // quick check for root node name
-        if (name.length() == 0) {
-            return name;
-        }
-        if (XMLChar.isValidName(name) && name.indexOf("_x") < 0) {
+        int first = firstEncoded(name);
+        if (first < 0) {
             // already valid
             return name;
+        }
+        StringBuilder encoded = new StringBuilder(name.length() + 2 * ENCODED_LENGTH);
+        encoded.append(name, 0, first);
+        encode(name, first, encoded);
+        return encoded.toString();
+    }
+
+    /**
+     * Appends <code>name</code> encoded as specified in ISO 9075 to <code>encoded</code>.
+     * @param name the <code>String</code> to encode.
+     * @param encoded the builder to append to.
+     */
+    public static void encode(String name, StringBuilder encoded) {
+        int first = firstEncoded(name);
+        if (first < 0) {
+            encoded.append(name);
         } else {
-            // encode
-            StringBuffer encoded = new StringBuffer();
-            for (int i = 0; i < name.length(); i++) {
-                if (i == 0) {
-                    // first character of name
-                    if (XMLChar.isNameStart(name.charAt(i))) {
-                        if (needsEscaping(name, i)) {
-                            // '_x' must be encoded
-                            encode('_', encoded);
-                        } else {
-                            encoded.append(name.charAt(i));
-                        }
-                    } else {
-                        // not valid as first character -> encode
-                        encode(name.charAt(i), encoded);
-                    }
-                } else if (!XMLChar.isName(name.charAt(i))) {
-                    encode(name.charAt(i), encoded);
-                } else {
-                    if (needsEscaping(name, i)) {
-                        // '_x' must be encoded
-                        encode('_', encoded);
-                    } else {
-                        encoded.append(name.charAt(i));
-                    }
-                }
+            encoded.append(name, 0, first);
+            encode(name, first, encoded);
+        }
+    }
+
+    /**
+     * Writes <code>name</code> encoded as specified in ISO 9075 to <code>destination</code>.
+     * @param name the <code>String</code> to encode.
+     * @param destination the array to write to, it must have room for
+     *   <code>7 * name.length()</code> characters in the worst case.
+     * @param offset the position of the first written character.
+     * @return the position after the last written character.
+     * @throws ArrayIndexOutOfBoundsException if <code>destination</code> is too small.
+     */
+    public static int encode(String name, char[] destination, int offset) {
+        int position = offset;
+        int length = name.length();
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (needsEncoding(name, i, c)) {
+                position = encode(c, destination, position);
+            } else {
+                destination[position++] = c;
             }
-            return encoded.toString();
         }
+        return position;
     }
 
     /**
@@ -95,7 +116,7 @@ public class ISO9075 {
      */
     public static String encodePath(String path) {
         String[] names = Text.explode(path, '/', true);
-        StringBuffer encoded = new StringBuffer(path.length());
+        StringBuilder encoded = new StringBuilder(path.length());
         for (int i = 0; i < names.length; i++) {
             // detect index
             String index = null;
@@ -104,7 +125,7 @@ public class ISO9075 {
                 index = names[i].substring(idx);
                 names[i] = names[i].substring(0, idx);
             }
-            encoded.append(encode(names[i]));
+            encode(names[i], encoded);
             if (index != null) {
                 encoded.append(index);
             }
@@ -121,26 +142,98 @@ public class ISO9075 {
      * @return the decoded <code>String</code>.
      */
     public static String decode(String name) {
-        // quick check
-        if (name.indexOf("_x") < 0) {
+        int first = nextEncoded(name, 0);
+        if (first < 0) {
             // not encoded
             return name;
         }
-        StringBuffer decoded = new StringBuffer();
-        Matcher m = ENCODE_PATTERN.matcher(name);
-        while (m.find()) {
-            char ch = (char) Integer.parseInt(m.group().substring(2, 6), 16);
-            if (ch == '$' || ch == '\\') {
-                m.appendReplacement(decoded, "\\" + ch);
+        StringBuilder decoded = new StringBuilder(name.length() - ENCODED_LENGTH + 1);
+        decode(name, 0, first, decoded);
+        return decoded.toString();
+    }
+
+    /**
+     * Appends decoded <code>name</code> to <code>decoded</code>.
+     * @param name the <code>String</code> to decode.
+     * @param decoded the builder to append to.
+     */
+    public static void decode(String name, StringBuilder decoded) {
+        decode(name, 0, nextEncoded(name, 0), decoded);
+    }
+
+    /**
+     * Writes decoded <code>name</code> to <code>destination</code>.
+     * @param name the <code>String</code> to decode.
+     * @param destination the array to write to, decoded name is never longer
+     *   than <code>name</code>.
+     * @param offset the position of the first written character.
+     * @return the position after the last written character.
+     * @throws ArrayIndexOutOfBoundsException if <code>destination</code> is too small.
+     */
+    public static int decode(String name, char[] destination, int offset) {
+        int position = offset;
+        int start = 0;
+        int next;
+        while ((next = nextEncoded(name, start)) >= 0) {
+            name.getChars(start, next, destination, position);
+            position += next - start;
+            destination[position++] = decodedChar(name, next);
+            start = next + ENCODED_LENGTH;
+        }
+        name.getChars(start, name.length(), destination, position);
+        return position + name.length() - start;
+    }
+
+    //-------------------------< internal >-------------------------------------
+
+    /**
+     * Encodes characters of <code>name</code> starting from <code>from</code>.
+     * Supplementary characters are not XML 1.0 name characters, both their
+     * UTF-16 units are encoded.
+     */
+    private static void encode(String name, int from, StringBuilder encoded) {
+        int length = name.length();
+        for (int i = from; i < length; i++) {
+            char c = name.charAt(i);
+            if (XMLChar.isHighSurrogate(c) && i + 1 < length && XMLChar.isLowSurrogate(name.charAt(i + 1))
+                    && XMLChar.isSupplemental(XMLChar.supplemental(c, name.charAt(i + 1)))) {
+                encode(c, encoded);
+                encode(name.charAt(++i), encoded);
+            } else if (needsEncoding(name, i, c)) {
+                encode(c, encoded);
             } else {
-                m.appendReplacement(decoded, Character.toString(ch));
+                encoded.append(c);
             }
         }
-        m.appendTail(decoded);
-        return decoded.toString();
     }
 
-    //-------------------------< internal >-------------------------------------
+    /**
+     * @return index of the first character that needs encoding or -1
+     */
+    private static int firstEncoded(String name) {
+        int length = name.length();
+        for (int i = 0; i < length; i++) {
+            if (needsEncoding(name, i, name.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if character <code>c</code> at position <code>location</code>
+     * is not valid XML name character at this position or it is the underscore
+     * of sequence that looks like encoded character.
+     */
+    private static boolean needsEncoding(String name, int location, char c) {
+        boolean valid;
+        if (c < 128) {
+            valid = location == 0 ? ASCII_NAME_START[c] : ASCII_NAME[c];
+        } else {
+            valid = location == 0 ? XMLChar.isNameStart(c) : XMLChar.isName(c);
+        }
+        return !valid || needsEscaping(name, location);
+    }
 
     /**
      * Encodes the character <code>c</code> as a String in the following form:
@@ -149,35 +242,83 @@ public class ISO9075 {
      * <p/>
      * Example: ' ' (the space character) is encoded to: _x0020_
      * @param c the character to encode
-     * @param b the encoded character is appended to <code>StringBuffer</code>
+     * @param b the encoded character is appended to <code>StringBuilder</code>
      *  <code>b</code>.
      */
-    private static void encode(char c, StringBuffer b) {
-        b.append("_x");
-        String hex = Integer.toHexString(c);
-        b.append(PADDING, 0, 4 - hex.length());
-        b.append(hex);
-        b.append("_");
+    private static void encode(char c, StringBuilder b) {
+        b.append('_').append('x')
+                .append(HEX_DIGITS[(c >> 12) & 0xF])
+                .append(HEX_DIGITS[(c >> 8) & 0xF])
+                .append(HEX_DIGITS[(c >> 4) & 0xF])
+                .append(HEX_DIGITS[c & 0xF])
+                .append('_');
+    }
+
+    private static int encode(char c, char[] destination, int position) {
+        destination[position] = '_';
+        destination[position + 1] = 'x';
+        destination[position + 2] = HEX_DIGITS[(c >> 12) & 0xF];
+        destination[position + 3] = HEX_DIGITS[(c >> 8) & 0xF];
+        destination[position + 4] = HEX_DIGITS[(c >> 4) & 0xF];
+        destination[position + 5] = HEX_DIGITS[c & 0xF];
+        destination[position + 6] = '_';
+        return position + ENCODED_LENGTH;
+    }
+
+    /**
+     * Appends <code>name</code> from <code>start</code> replacing encoded
+     * characters, <code>next</code> is the position of the first of them or -1.
+     */
+    private static void decode(String name, int start, int next, StringBuilder decoded) {
+        while (next >= 0) {
+            decoded.append(name, start, next);
+            decoded.append(decodedChar(name, next));
+            start = next + ENCODED_LENGTH;
+            next = nextEncoded(name, start);
+        }
+        decoded.append(name, start, name.length());
+    }
+
+    /**
+     * @return position of the next '_xHHHH_' sequence starting from <code>from</code> or -1
+     */
+    private static int nextEncoded(String name, int from) {
+        int last = name.length() - ENCODED_LENGTH;
+        for (int i = name.indexOf('_', from); i >= 0 && i <= last; i = name.indexOf('_', i + 1)) {
+            if (name.charAt(i + 1) == 'x' && isHexDigits(name, i + 2) && name.charAt(i + 6) == '_') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static char decodedChar(String name, int location) {
+        return (char) (HEX_VALUES[name.charAt(location + 2)] << 12 | HEX_VALUES[name.charAt(location + 3)] << 8
+                | HEX_VALUES[name.charAt(location + 4)] << 4 | HEX_VALUES[name.charAt(location + 5)]);
+    }
+
+    /**
+     * Returns true if four characters starting from <code>location</code> are hex digits.
+     */
+    private static boolean isHexDigits(String name, int location) {
+        for (int i = location; i < location + 4; i++) {
+            char c = name.charAt(i);
+            if (c >= 128 || HEX_VALUES[c] < 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
      * Returns true if <code>name.charAt(location)</code> is the underscore
-     * character and the following character sequence is 'xHHHH_' where H
+     * character and the following character sequence is 'xHHHH' where H
      * is a hex digit.
      * @param name the name to check.
      * @param location the location to look at.
-     * @throws ArrayIndexOutOfBoundsException if location > name.length()
      */
-    private static boolean needsEscaping(String name, int location)
-            throws ArrayIndexOutOfBoundsException {
-        if (name.charAt(location) == '_' && name.length() >= location + 6) {
-            return name.charAt(location + 1) == 'x'
-                    && HEX_DIGITS.indexOf(name.charAt(location + 2)) != -1
-                    && HEX_DIGITS.indexOf(name.charAt(location + 3)) != -1
-                    && HEX_DIGITS.indexOf(name.charAt(location + 4)) != -1
-                    && HEX_DIGITS.indexOf(name.charAt(location + 5)) != -1;
-        } else {
-            return false;
-        }
+    private static boolean needsEscaping(String name, int location) {
+        return name.charAt(location) == '_' && name.length() >= location + 6
+                && name.charAt(location + 1) == 'x' && isHexDigits(name, location + 2);
     }
 }
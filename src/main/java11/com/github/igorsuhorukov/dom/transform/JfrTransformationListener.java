@@ -0,0 +1,63 @@
+package com.github.igorsuhorukov.dom.transform;
+
+/**
+ * Commit statistics as <code>com.github.igorsuhorukov.dom.transform.Transformation</code> flight recorder event.
+ * Statistics are collected only while event is enabled in running recording.
+ * <p/>
+ * Listener is compiled for Java 11 by <code>java11</code> build profile, the rest of library works on Java 8. Event
+ * class is not loaded until listener is created, so runtime without jdk.jfr module is detected by
+ * {@link #isAvailable()}.
+ */
+public class JfrTransformationListener implements TransformationListener {
+
+    private static final boolean AVAILABLE = isJfrPresent();
+
+    public JfrTransformationListener() {
+        if(!AVAILABLE){
+            throw new IllegalStateException("jdk.jfr is not available in runtime");
+        }
+    }
+
+    /**
+     * @return listener if flight recorder is available in runtime, otherwise null
+     */
+    public static TransformationListener createIfAvailable() {
+        return AVAILABLE ? new JfrTransformationListener() : null;
+    }
+
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return new TransformationEvent().isEnabled();
+    }
+
+    @Override
+    public void transformed(TransformationStatistics statistics) {
+        TransformationEvent event = new TransformationEvent();
+        if(event.isEnabled()){
+            event.totalTime = statistics.getTotalNanos();
+            event.parseTime = statistics.getParseNanos();
+            event.typeConversionTime = statistics.getTypeConversionNanos();
+            event.nestedElementsTime = statistics.getNestedElementsNanos();
+            event.elementCount = statistics.getElementCount();
+            event.attributeCount = statistics.getAttributeCount();
+            event.textNodeCount = statistics.getTextNodeCount();
+            event.textBytes = statistics.getTextBytes();
+            event.maxDepth = statistics.getMaxDepth();
+            event.typeConversionCount = statistics.getTypeConversionCount();
+            event.commit();
+        }
+    }
+
+    private static boolean isJfrPresent() {
+        try {
+            Class.forName("jdk.jfr.Event", false, JfrTransformationListener.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.igorsuhorukov.dom.transform;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event, loaded only through {@link JfrTransformationListener} when jdk.jfr is available
+ */
+@Name("com.github.igorsuhorukov.dom.transform.Transformation")
+@Label("DOM Transformation")
+@Category({"XML", "DOM Transformation"})
+@Description("Statistics of DomTransformer call")
+@StackTrace(false)
+class TransformationEvent extends Event {
+
+    @Label("Total Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long totalTime;
+
+    @Label("Parse Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long parseTime;
+
+    @Label("Type Conversion Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long typeConversionTime;
+
+    @Label("Nested Elements Time")
+    @Description("Sibling grouping and name decoding of nested elements, includes type conversion of nested values")
+    @Timespan(Timespan.NANOSECONDS)
+    long nestedElementsTime;
+
+    @Label("Elements")
+    long elementCount;
+
+    @Label("Attributes")
+    long attributeCount;
+
+    @Label("Text Nodes")
+    long textNodeCount;
+
+    @Label("Text Size")
+    @DataAmount
+    long textBytes;
+
+    @Label("Max Depth")
+    int maxDepth;
+
+    @Label("Type Conversions")
+    long typeConversionCount;
+}
@@ -0,0 +1,89 @@
+import com.github.igorsuhorukov.dom.transform.AdaptiveDomTransformer;
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveDomTransformerTest {
+
+    private final DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect());
+
+    @Test
+    public void testLearningAndDeoptimization() throws Exception {
+        AdaptiveDomTransformer transformer = new AdaptiveDomTransformer(domTransformer, 5);
+        for(int i = 0; i < 10; i++){
+            assertSameResult(transformer, order(i, 1));
+        }
+        assertEquals(5, transformer.getLearnedCount());
+        assertEquals(1, transformer.getSwitchCount());
+        assertEquals(5, transformer.getFastPathCount());
+
+        assertSameResult(transformer, "<order><unknown/></order>");
+        assertSameResult(transformer, order(10, 3));
+        assertEquals(2, transformer.getDeoptimizationCount());
+        assertEquals(3, transformer.getSwitchCount());
+
+        assertSameResult(transformer, order(11, 1));
+        assertSameResult(transformer, order(12, 2));
+        assertSameResult(transformer, "<order id='1'>text<unknown>1</unknown><note/><note>2</note></order>");
+        assertEquals(2, transformer.getDeoptimizationCount());
+        assertEquals(8, transformer.getFastPathCount());
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        AdaptiveDomTransformer transformer = new AdaptiveDomTransformer(domTransformer, 10);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for(int i = 0; i < 400; i++){
+                String xml = order(i, i % 7==0 ? 2 : 1);
+                results.add(executorService.submit(() -> {
+                    assertSameResult(transformer, xml);
+                    return null;
+                }));
+            }
+            for(Future<?> result: results){
+                result.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assertTrue(transformer.getFastPathCount() > 0);
+        //document converted generically is not learned if other thread recompiled the shape meanwhile,
+        //each compilation loses at most one in-flight document of every other worker thread
+        long converted = transformer.getFastPathCount() + transformer.getLearnedCount();
+        assertTrue(converted <= 400);
+        assertTrue("converted: "+converted, converted >= 400 - 3 * transformer.getSwitchCount());
+    }
+
+    private static String order(int id, int items) {
+        StringBuilder xml = new StringBuilder("<order id='").append(id).append("' status='new'>\n <code>c").append(id).append("</code>");
+        for(int i = 0; i < items; i++){
+            xml.append("<item sku='s").append(i).append("'><qty>").append(i + 1).append("</qty><price>1.5</price></item>");
+        }
+        return xml.append("<note/></order>").toString();
+    }
+
+    private void assertSameResult(AdaptiveDomTransformer transformer, String xml) throws Exception {
+        Node node = DocumentBuilderFactory.newInstance().newDocumentBuilder().
+                parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))).getDocumentElement();
+        Map<String, Object> expected = domTransformer.transform(node);
+        Map<String, Object> result = transformer.transform(node);
+        assertEquals(expected, result);
+        assertEquals(expected.toString(), result.toString());
+    }
+}
@@ -0,0 +1,78 @@
+import com.github.igorsuhorukov.dom.transform.BatchTransformer;
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class BatchTransformerTest {
+
+    @Test
+    public void testOrderedResults() throws Exception {
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect());
+        List<byte[]> documents = new ArrayList<>();
+        List<Map<String, Object>> expected = new ArrayList<>();
+        for(int i = 0; i < 500; i++){
+            byte[] xml = ("<doc id=\"" + i + "\"><item>" + i + "</item><item>x" + i + "</item></doc>").getBytes(StandardCharsets.UTF_8);
+            documents.add(xml);
+            expected.add(domTransformer.transform(DocumentBuilderFactory.newInstance().newDocumentBuilder().
+                    parse(new ByteArrayInputStream(xml)).getDocumentElement()));
+        }
+        BatchTransformer batchTransformer = new BatchTransformer(domTransformer);
+        List<Map<String, Object>> results = batchTransformer.transformXml(documents);
+        assertEquals(expected, results);
+        assertEquals(expected, batchTransformer.transformXml(documents.stream()));
+
+        List<Node> nodes = batchTransformer.transformMaps(results);
+        assertEquals(expected, batchTransformer.transformNodes(nodes));
+    }
+
+    @Test
+    public void testConcurrencyLimit() {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            BatchTransformer batchTransformer = new BatchTransformer(new DomTransformer(new TypeAutoDetect()), executor, 3);
+            AtomicInteger active = new AtomicInteger();
+            AtomicInteger maxActive = new AtomicInteger();
+            List<Integer> results = new ArrayList<>();
+            Iterator<Integer> inputs = IntStream.range(0, 200).iterator();
+            batchTransformer.forEachOrdered(inputs, input -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(input % 3);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                active.decrementAndGet();
+                return input * 2;
+            }, results::add);
+            assertTrue(maxActive.get() <= 3);
+            for(int i = 0; i < 200; i++){
+                assertEquals(i * 2, (int) results.get(i));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFailurePropagation() {
+        List<byte[]> documents = new ArrayList<>();
+        documents.add("<a>1</a>".getBytes(StandardCharsets.UTF_8));
+        documents.add("<broken>".getBytes(StandardCharsets.UTF_8));
+        new BatchTransformer(new DomTransformer(new TypeAutoDetect())).transformXml(documents);
+    }
+}
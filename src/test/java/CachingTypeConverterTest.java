@@ -0,0 +1,61 @@
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.CachingTypeConverter;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class CachingTypeConverterTest {
+
+    @Test
+    public void testCanonicalResults() {
+        CachingTypeConverter converter = new CachingTypeConverter(new TypeAutoDetect(), 16, 8);
+        Object first = converter.transform(new String("12345"));
+        assertSame(first, converter.transform(new String("12345")));
+        assertSame(first, converter.transform("12345"));
+        assertEquals(2, converter.getHitCount());
+        assertEquals(1, converter.getMissCount());
+
+        String longValue = "123456789";
+        assertNotSame(converter.transform(longValue), converter.transform(longValue));
+        assertEquals(2, converter.getHitCount());
+
+        for(int i = 0; i < 1000; i++){
+            assertEquals(new TypeAutoDetect().transform(Integer.toString(i)), converter.transform(Integer.toString(i)));
+        }
+        assertEquals(1003, converter.getHitCount() + converter.getMissCount());
+    }
+
+    @Test
+    public void testConcurrentTransformation() throws Exception {
+        Object expected = new DomTransformer(new TypeAutoDetect()).transform(parseDocbook().getDocumentElement());
+        DomTransformer domTransformer = new DomTransformer(new CachingTypeConverter(new TypeAutoDetect(), 64, 16));
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for(int i = 0; i < 16; i++){
+                results.add(executorService.submit(() -> domTransformer.transform(parseDocbook().getDocumentElement())));
+            }
+            for(Future<Object> result: results){
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private static Document parseDocbook() throws Exception {
+        try (InputStream stream = CachingTypeConverterTest.class.getResourceAsStream("/docbook.xml")){
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream);
+        }
+    }
+}
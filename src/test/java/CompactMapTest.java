@@ -0,0 +1,60 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.igorsuhorukov.dom.transform.CompactMapTransformer;
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class CompactMapTest {
+
+    @Test
+    public void testSameAsTransformResult() throws Exception {
+        Document docbook;
+        try (InputStream stream = CompactMapTest.class.getResourceAsStream("/docbook.xml")){
+            docbook = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream);
+        }
+        StringBuilder wide = new StringBuilder("<wide a=\"1\">");
+        for(int i = 0; i < 100; i++){
+            wide.append("<n").append(i % 20).append(">").append(i).append("</n").append(i % 20).append(">");
+        }
+        Document wideDocument = DocumentBuilderFactory.newInstance().newDocumentBuilder().
+                parse(new ByteArrayInputStream(wide.append("</wide>").toString().getBytes(StandardCharsets.UTF_8)));
+
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect());
+        CompactMapTransformer compactMapTransformer = new CompactMapTransformer(domTransformer);
+        ObjectMapper objectMapper = new ObjectMapper();
+        for(Document document: new Document[]{docbook, wideDocument}){
+            Map<String, Object> expected = domTransformer.transform(document.getDocumentElement());
+            Map<String, Object> compact = compactMapTransformer.transform(document.getDocumentElement());
+            assertEquals(expected, compact);
+            assertEquals(compact, expected);
+            assertEquals(expected.hashCode(), compact.hashCode());
+            assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(compact));
+            assertEquals(expected, compactMapTransformer.compact(expected));
+        }
+        Map<?, ?> wideMap = (Map<?, ?>) compactMapTransformer.transform(wideDocument.getDocumentElement()).get("wide");
+        assertEquals(21, wideMap.size());
+        assertEquals(1, ((Number) wideMap.get("@a")).intValue());
+        assertTrue(wideMap.containsKey("n19"));
+        assertFalse(wideMap.containsKey("n20"));
+        assertNull(wideMap.get("n20"));
+        assertEquals(5, ((List<?>) wideMap.get("n7")).size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().
+                parse(new ByteArrayInputStream("<a><b>1</b><c>2</c></a>".getBytes(StandardCharsets.UTF_8)));
+        Map<String, Object> result = new CompactMapTransformer(new DomTransformer(new TypeAutoDetect())).
+                transform(document.getDocumentElement());
+        ((Map<?, ?>) result.get("a")).remove("b");
+    }
+}
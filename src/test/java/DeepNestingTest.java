@@ -0,0 +1,185 @@
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.github.igorsuhorukov.dom.transform.AdaptiveDomTransformer;
+import com.github.igorsuhorukov.dom.transform.CompactMapTransformer;
+import com.github.igorsuhorukov.dom.transform.DomJsonWriter;
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.JsonStreamTransformer;
+import com.github.igorsuhorukov.dom.transform.ParallelDomTransformer;
+import com.github.igorsuhorukov.dom.transform.Projection;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringWriter;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DeepNestingTest {
+
+    private static final int DEPTH = 100000;
+
+    private final DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect());
+
+    @Test
+    public void testDeepDocument() throws Exception {
+        assertDeepResult(domTransformer.transform(createDeepDocument(DEPTH).getDocumentElement()));
+    }
+
+    @Test
+    public void testDeepDocumentInParallel() throws Exception {
+        assertDeepResult(new ParallelDomTransformer(domTransformer).transform(createDeepDocument(DEPTH).getDocumentElement()));
+    }
+
+    @Test
+    public void testDeepDocumentAdaptive() throws Exception {
+        AdaptiveDomTransformer transformer = new AdaptiveDomTransformer(domTransformer, 1);
+        assertDeepResult(transformer.transform(createDeepDocument(DEPTH).getDocumentElement()));
+        assertEquals(0, transformer.getLearnedCount());
+        Document shallow = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        shallow.appendChild(shallow.createElement("level")).appendChild(shallow.createElement("level"));
+        transformer.transform(shallow.getDocumentElement());
+        assertEquals(1, transformer.getSwitchCount());
+        assertDeepResult(transformer.transform(createDeepDocument(DEPTH).getDocumentElement()));
+        assertEquals(1, transformer.getDeoptimizationCount());
+    }
+
+    @Test
+    public void testDeepDocumentCompact() throws Exception {
+        CompactMapTransformer transformer = new CompactMapTransformer(domTransformer);
+        Map<String, Object> result = transformer.transform(createDeepDocument(DEPTH).getDocumentElement());
+        assertDeepResult(result);
+        assertDeepResult(transformer.compact(result));
+    }
+
+    @Test
+    public void testDeepProjection() throws Exception {
+        Map<String, Object> result = domTransformer.transform(createDeepDocument(DEPTH).getDocumentElement(),
+                new Projection("//level/@depth"));
+        Object value = result.get("level");
+        for(int i = 1; i < DEPTH; i++){
+            value = ((Map<?, ?>) value).get("level");
+        }
+        Map<?, ?> leaf = (Map<?, ?>) value;
+        assertEquals(Integer.toString(DEPTH - 1), leaf.get("@depth").toString());
+        assertNull(leaf.get("_val_"));
+    }
+
+    @Test
+    public void testDeepJsonStreaming() throws Exception {
+        String json = writeJson(createDeepDocument(DEPTH));
+        assertTrue(json.startsWith("{\"level\":{\"level\":{\"@depth\":1,\"level\":{\"@depth\":2,"));
+        assertTrue(json.endsWith("{\"@depth\":"+(DEPTH - 1)+",\"_val_\":\"leaf\"}"+repeat("}", DEPTH)));
+    }
+
+    @Test
+    public void testDeepJsonToXmlStreaming() throws Exception {
+        String json = writeJson(createDeepDocument(DEPTH));
+        StringWriter xml = new StringWriter();
+        try (JsonParser parser = new JsonFactory().createParser(json)){
+            new JsonStreamTransformer(domTransformer).transform(parser, xml);
+        }
+        assertTrue(xml.toString().contains("<level><level depth=\"1\"><level depth=\"2\">"));
+        assertTrue(xml.toString().endsWith("<level depth=\""+(DEPTH - 1)+"\">leaf"+
+                repeat("</level>", DEPTH)));
+    }
+
+    @Test
+    public void testDeepMap() throws Exception {
+        assertDeepNode(domTransformer.transform(createDeepMap()));
+    }
+
+    @Test
+    public void testDeepMapInParallel() throws Exception {
+        assertDeepNode(new ParallelDomTransformer(domTransformer).transform(createDeepMap()));
+    }
+
+    @Test
+    public void testDeepMapWriteXml() throws Exception {
+        StringWriter xml = new StringWriter();
+        domTransformer.writeXml(createDeepMap(), xml);
+        assertTrue(xml.toString().contains("<level depth=\"1\"><level depth=\"2\">"));
+        assertTrue(xml.toString().endsWith("<level depth=\""+(DEPTH - 1)+"\"><item>1</item><item>2</item>"+
+                repeat("</level>", DEPTH - 1)));
+    }
+
+    private static Document createDeepDocument(int depth) throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        //built from the leaf, DOM checks all ancestors of parent when node is appended
+        Element child = document.createElement("level");
+        child.appendChild(document.createTextNode("leaf"));
+        for(int i = depth - 1; i > 0; i--){
+            child.setAttribute("depth", Integer.toString(i));
+            Element element = document.createElement("level");
+            element.appendChild(child);
+            child = element;
+        }
+        document.appendChild(child);
+        return document;
+    }
+
+    private String writeJson(Document document) throws Exception {
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = new JsonFactory().createGenerator(json)){
+            new DomJsonWriter(domTransformer).write(document.getDocumentElement(), generator);
+        }
+        return json.toString();
+    }
+
+    private static void assertDeepResult(Map<String, Object> result) {
+        Object value = result.get("level");
+        for(int i = 1; i < DEPTH; i++){
+            value = ((Map<?, ?>) value).get("level");
+            if(i < DEPTH - 1){
+                assertEquals(Integer.toString(i), ((Map<?, ?>) value).get("@depth").toString());
+            }
+        }
+        Map<?, ?> leaf = (Map<?, ?>) value;
+        assertEquals(Integer.toString(DEPTH - 1), leaf.get("@depth").toString());
+        assertEquals("leaf", leaf.get("_val_"));
+    }
+
+    private static Map<String, Object> createDeepMap() {
+        Map<String, Object> leaf = new LinkedHashMap<>();
+        leaf.put("@depth", DEPTH - 1);
+        leaf.put("item", Arrays.asList(1, 2));
+        Map<String, Object> value = leaf;
+        for(int i = DEPTH - 2; i > 0; i--){
+            Map<String, Object> level = new LinkedHashMap<>();
+            level.put("@depth", i);
+            level.put("level", value);
+            value = level;
+        }
+        return Collections.singletonMap("level", value);
+    }
+
+    private static void assertDeepNode(Node node) {
+        Element element = (Element) node;
+        assertEquals("1", element.getAttribute("depth"));
+        for(int i = 2; i < DEPTH; i++){
+            element = (Element) element.getFirstChild();
+            assertEquals("level", element.getNodeName());
+            assertEquals(Integer.toString(i), element.getAttribute("depth"));
+        }
+        Node item = element.getFirstChild();
+        assertEquals("item", item.getNodeName());
+        assertEquals("1", item.getTextContent());
+        assertEquals("2", item.getNextSibling().getTextContent());
+        assertNull(item.getNextSibling().getNextSibling());
+    }
+
+    private static String repeat(String text, int count) {
+        StringBuilder result = new StringBuilder(text.length() * count);
+        for(int i = 0; i < count; i++){
+            result.append(text);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,54 @@
+import org.apache.jackrabbit.util.ISO9075;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ISO9075Test {
+
+    private static final String[] FRAGMENTS = {"_x", "_x0", "_x00", "_x004", "_x0041", "_x0041_", "_X0041_", "_x00e9_",
+            "_xD83D_", "_xde00_", "_x0024_", "_x005c_", "_x005C_", "_xzzzz_", "_", "x", "a", "Z", "0", "9", "-", ".",
+            ":", " ", "$", "\\", "@", "\u00e9", "\u0663", "\u4e2d", "\u2028", "\ud83d\ude00", "\ud83d", "\ude00",
+            "\u0000", "\uffff", "ab", "name"};
+
+    @Test
+    public void testSameAsLegacyImplementation() {
+        Random random = new Random(42);
+        List<String> names = new ArrayList<>(Arrays.asList(FRAGMENTS));
+        names.add("");
+        for(int i = 0; i < 200000; i++){
+            StringBuilder name = new StringBuilder();
+            int fragments = random.nextInt(8);
+            for(int j = 0; j < fragments; j++){
+                if(random.nextInt(4)==0){
+                    name.append((char) random.nextInt(0x10000));
+                } else {
+                    name.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+                }
+            }
+            names.add(name.toString());
+        }
+        for(String name: names){
+            String encoded = LegacyISO9075.encode(name);
+            assertEquals(name, encoded, ISO9075.encode(name));
+            assertEquals(name, LegacyISO9075.decode(name), ISO9075.decode(name));
+            assertEquals(name, LegacyISO9075.decode(encoded), ISO9075.decode(encoded));
+            assertEquals(name, LegacyISO9075.encodePath(name), ISO9075.encodePath(name));
+
+            StringBuilder builder = new StringBuilder("prefix");
+            ISO9075.encode(name, builder);
+            assertEquals(name, "prefix" + encoded, builder.toString());
+            builder.setLength(0);
+            ISO9075.decode(encoded, builder);
+            assertEquals(name, LegacyISO9075.decode(encoded), builder.toString());
+
+            char[] buffer = new char[name.length() * 7 + 1];
+            assertEquals(name, encoded, new String(buffer, 1, ISO9075.encode(name, buffer, 1) - 1));
+            assertEquals(name, LegacyISO9075.decode(name), new String(buffer, 1, ISO9075.decode(name, buffer, 1) - 1));
+        }
+    }
+}
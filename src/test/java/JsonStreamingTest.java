@@ -0,0 +1,135 @@
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.igorsuhorukov.dom.transform.DomJsonWriter;
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.JsonStreamTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.NopTypeConverter;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import com.github.igorsuhorukov.dom.transform.document.DefaultDocumentCreator;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonStreamingTest {
+
+    private static final String MIXED_XML = "<root a=\"1\" b=\"x\">text<item id=\"1\">one</item><item/><_x0031_name>007</_x0031_name>" +
+            "<_x005f_x0032_>2</_x005f_x0032_><single>true</single><nested><leaf>3.5</leaf><leaf>4</leaf></nested><item>three</item></root>";
+
+    @Test
+    public void testXmlToJsonGenerator() throws Exception {
+        Document docbook;
+        try (InputStream stream = JsonStreamingTest.class.getResourceAsStream("/docbook.xml")){
+            docbook = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream);
+        }
+        Document mixed = DocumentBuilderFactory.newInstance().newDocumentBuilder().
+                parse(new ByteArrayInputStream(MIXED_XML.getBytes(StandardCharsets.UTF_8)));
+        DomTransformer[] transformers = {new DomTransformer(new NopTypeConverter()), new DomTransformer(new TypeAutoDetect()),
+                new DomTransformer(new TypeAutoDetect(), new DefaultDocumentCreator(),
+                        name -> "attr::"+name, (String name) -> name.startsWith("attr::"),
+                        (String name) ->  name.substring("attr::".length()),"contentValue_")};
+        for(DomTransformer domTransformer: transformers){
+            for(Document document: new Document[]{docbook, mixed}){
+                ObjectMapper objectMapper = new ObjectMapper();
+                StringWriter json = new StringWriter();
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(json)){
+                    new DomJsonWriter(domTransformer).write(document.getDocumentElement(), generator);
+                }
+                assertEquals(objectMapper.writeValueAsString(domTransformer.transform(document.getDocumentElement())),
+                        json.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testJsonParserToXmlStreamWriter() throws Exception {
+        Document docbook;
+        try (InputStream stream = JsonStreamingTest.class.getResourceAsStream("/docbook.xml")){
+            docbook = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream);
+        }
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect(), new DefaultDocumentCreator(),
+                name -> "attr::"+name, (String name) -> name.startsWith("attr::"),
+                (String name) ->  name.substring("attr::".length()),"contentValue_");
+        ObjectMapper objectMapper = new ObjectMapper();
+        String[] jsonDocuments = {objectMapper.writeValueAsString(domTransformer.transform(docbook.getDocumentElement())),
+                "{\"wrapper\":{\"attr::2attr\":true,\"attr::a\":\"<&>\\\"\",\"1name\":2,\"contentValue_\":\"text\",\"empty\":{}," +
+                        "\"list\":[1,null,{\"attr::id\":1.5,\"x\":null},[1,2]],\"nested\":{\"map\":{\"a\":1}}}}",
+                "{\"root\":[{\"attr::id\":1},\"text\",{\"child\":true}]}"};
+        for(String json: jsonDocuments){
+            Map<String, Object> jsonMap = objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+            Map<String, Object> expected = domTransformer.transform(domTransformer.transform(jsonMap));
+
+            StringWriter xml = new StringWriter();
+            try (JsonParser parser = objectMapper.getFactory().createParser(json)){
+                new JsonStreamTransformer(domTransformer).transform(parser, xml);
+            }
+            StringWriter staxXml = new StringWriter();
+            try (JsonParser parser = objectMapper.getFactory().createParser(json)){
+                XMLStreamWriter xmlStreamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(staxXml);
+                new JsonStreamTransformer(domTransformer).transform(parser, xmlStreamWriter);
+                xmlStreamWriter.flush();
+            }
+            for(String streamedXml: new String[]{xml.toString(), staxXml.toString()}){
+                Document streamed = DocumentBuilderFactory.newInstance().newDocumentBuilder().
+                        parse(new ByteArrayInputStream(streamedXml.getBytes(StandardCharsets.UTF_8)));
+                assertEquals(objectMapper.writeValueAsString(expected),
+                        objectMapper.writeValueAsString(domTransformer.transform(streamed.getDocumentElement())));
+            }
+        }
+    }
+
+    @Test
+    public void testAttributeWhitespaceRoundTrip() throws Exception {
+        DomTransformer domTransformer = new DomTransformer(new NopTypeConverter());
+        StringWriter xml = new StringWriter();
+        try (JsonParser parser = new ObjectMapper().getFactory().createParser("{\"root\":{\"@a\":\"x\\ny\\tz\\r\",\"b\":\"1\"}}")){
+            new JsonStreamTransformer(domTransformer).transform(parser, xml);
+        }
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><root a=\"x&#10;y&#9;z&#13;\"><b>1</b></root>", xml.toString());
+        Document streamed = DocumentBuilderFactory.newInstance().newDocumentBuilder().
+                parse(new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)));
+        assertEquals("x\ny\tz\r", ((Map<?, ?>) domTransformer.transform(streamed.getDocumentElement()).get("root")).get("@a"));
+    }
+
+    @Test
+    public void testSameAsWriteXml() throws Exception {
+        DomTransformer domTransformer = new DomTransformer(new NopTypeConverter());
+        ObjectMapper objectMapper = new ObjectMapper();
+        String[] jsonDocuments = {"{\"root\":{\"@b\":\"1\",\"@xmlns:x\":\"urn:x\",\"@a\":\"2\",\"@xmlns\":\"urn:d\",\"x:c\":\"3\"}}",
+                "{\"root\":[{\"@id\":1},{\"@xmlns\":\"urn:d\"},\"text\",{\"child\":[true,{\"@a\":1}]}]}"};
+        for(String json: jsonDocuments){
+            StringWriter xml = new StringWriter();
+            try (JsonParser parser = objectMapper.getFactory().createParser(json)){
+                new JsonStreamTransformer(domTransformer).transform(parser, xml);
+            }
+            StringWriter expected = new StringWriter();
+            domTransformer.writeXml(objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {}), expected);
+            assertEquals(expected.toString(), xml.toString());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRootListAttributeAfterContent() throws Exception {
+        try (JsonParser parser = new ObjectMapper().getFactory().createParser("{\"root\":[{\"@id\":1},\"text\",{\"@a\":2}]}")){
+            new JsonStreamTransformer(new DomTransformer(new NopTypeConverter())).transform(parser, new StringWriter());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAttributeAfterContent() throws Exception {
+        try (JsonParser parser = new ObjectMapper().getFactory().createParser("{\"root\":{\"child\":1,\"@id\":2}}")){
+            new JsonStreamTransformer(new DomTransformer(new NopTypeConverter())).transform(parser, new StringWriter());
+        }
+    }
+}
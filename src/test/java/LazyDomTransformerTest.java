@@ -0,0 +1,71 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.LazyDomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import com.github.igorsuhorukov.dom.transform.converter.TypeConverter;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LazyDomTransformerTest {
+
+    private static final String MIXED_XML = "<root a=\"1\" b=\"x\">text<item id=\"1\">one</item><item/><_x0031_name>007</_x0031_name>" +
+            "<_x005f_x0032_>2</_x005f_x0032_><single>true</single><nested><leaf>3.5</leaf><leaf>4</leaf></nested><item>three</item></root>";
+
+    @Test
+    public void testSameAsEagerTransformation() throws Exception {
+        Document docbook;
+        try (InputStream stream = LazyDomTransformerTest.class.getResourceAsStream("/docbook.xml")){
+            docbook = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream);
+        }
+        Document mixed = parse(MIXED_XML);
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect());
+        ObjectMapper objectMapper = new ObjectMapper();
+        for(Document document: new Document[]{docbook, mixed}){
+            Map<String, Object> expected = domTransformer.transform(document.getDocumentElement());
+            Map<String, Object> lazy = new LazyDomTransformer(domTransformer).transform(document.getDocumentElement());
+            assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(lazy));
+            assertEquals(expected, lazy);
+            assertEquals(expected, new LazyDomTransformer(domTransformer).transform(document.getDocumentElement()));
+        }
+    }
+
+    @Test
+    public void testConvertOnAccess() throws Exception {
+        AtomicInteger conversions = new AtomicInteger();
+        TypeConverter typeAutoDetect = new TypeAutoDetect();
+        DomTransformer domTransformer = new DomTransformer(value -> {
+            conversions.incrementAndGet();
+            return typeAutoDetect.transform(value);
+        });
+        Map<?, ?> root = (Map<?, ?>) new LazyDomTransformer(domTransformer).
+                transform(parse(MIXED_XML).getDocumentElement()).get("root");
+        int rootConversions = conversions.get();
+        assertEquals(8, root.size());
+        assertTrue(root.containsKey("nested"));
+        assertEquals(rootConversions, conversions.get());
+
+        Map<?, ?> nested = (Map<?, ?>) root.get("nested");
+        assertSame(nested, root.get("nested"));
+        List<?> leaves = (List<?>) nested.get("leaf");
+        assertEquals(4, ((Number) leaves.get(1)).intValue());
+        int accessConversions = conversions.get();
+        assertEquals(4, ((Number) leaves.get(1)).intValue());
+        assertEquals(accessConversions, conversions.get());
+        assertNull(((List<?>) root.get("item")).get(1));
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().
+                parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
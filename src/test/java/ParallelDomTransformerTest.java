@@ -0,0 +1,112 @@
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.ParallelDomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelDomTransformerTest {
+
+    @Test
+    public void testSameAsSequentialTransformation() throws Exception {
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect());
+        ObjectMapper objectMapper = new ObjectMapper();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for(byte[] xml: new byte[][]{readDocbook(), generateRecords(2000)}){
+                Map<String, Object> expected = domTransformer.transform(parse(xml).getDocumentElement());
+                for(int threshold: new int[]{1, 10, 1000, 1000000}){
+                    //deferred DOM of default parser is expanded only by snapshot in calling thread
+                    Map<String, Object> result = new ParallelDomTransformer(domTransformer, pool, threshold).
+                            transform(parse(xml).getDocumentElement());
+                    assertEquals(expected, result);
+                    assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(result));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSameAsSequentialMapToDom() throws Exception {
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect());
+        List<Map<String, Object>> maps = new ArrayList<>();
+        maps.add(domTransformer.transform(parse(readDocbook()).getDocumentElement()));
+        maps.add(domTransformer.transform(parse(generateRecords(2000)).getDocumentElement()));
+        maps.add(new ObjectMapper().readValue("{\"root\":{\"@a\":1,\"_val_\":\"text\",\"item\":[1,null,{\"@id\":2,\"x\":[3,{\"y\":4}]}," +
+                "{\"z\":[5,6,7]},8,{}],\"list\":[{\"a\":1},\"t\",{\"b\":{\"c\":[1,2]}}]}}", new TypeReference<Map<String, Object>>() {}));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for(Map<String, Object> map: maps){
+                Node expected = domTransformer.transform(map);
+                for(int threshold: new int[]{1, 3, 100, 1000000}){
+                    Node result = new ParallelDomTransformer(domTransformer, pool, threshold).transform(map);
+                    assertTrue(expected.isEqualNode(result));
+                    assertEquals(serialize(expected), serialize(result));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static String serialize(Node node) throws Exception {
+        StringWriter writer = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(node), new StreamResult(writer));
+        return writer.toString();
+    }
+
+    private static byte[] generateRecords(int count) {
+        Random random = new Random(42);
+        StringBuilder xml = new StringBuilder("<records>");
+        for(int i = 0; i < count; i++){
+            xml.append("<record id=\"").append(i).append("\" type=\"t").append(random.nextInt(5)).append("\">");
+            int fieldCount = random.nextInt(20);
+            for(int field = 0; field < fieldCount; field++){
+                int fieldName = random.nextInt(8);
+                xml.append("<field").append(fieldName).append(" v=\"").append(random.nextInt(100)).append("\">").
+                        append(random.nextBoolean()).append("<![CDATA[ ").append(random.nextInt(10)).append("]]></field").
+                        append(fieldName).append('>');
+            }
+            xml.append("<!-- comment --></record>");
+        }
+        return xml.append("</records>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readDocbook() throws Exception {
+        try (InputStream stream = ParallelDomTransformerTest.class.getResourceAsStream("/docbook.xml")){
+            byte[] buffer = new byte[1 << 20];
+            int length = 0;
+            for(int read; (read = stream.read(buffer, length, buffer.length - length)) > 0;){
+                length += read;
+            }
+            byte[] result = new byte[length];
+            System.arraycopy(buffer, 0, result, 0, length);
+            return result;
+        }
+    }
+
+    private static Document parse(byte[] xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+}
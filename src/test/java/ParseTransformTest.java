@@ -0,0 +1,93 @@
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParseTransformTest {
+
+    private final DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect());
+
+    @Test
+    public void testSameResultAsDefaultParser() throws Exception {
+        Document document;
+        try (InputStream stream = ParseTransformTest.class.getResourceAsStream("/docbook.xml")){
+            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream);
+        }
+        Map<String, Object> expected = domTransformer.transform(document.getDocumentElement());
+        try (InputStream stream = ParseTransformTest.class.getResourceAsStream("/docbook.xml")){
+            assertEquals(expected, domTransformer.transform(stream));
+        }
+        byte[] xml = readDocbook();
+        assertEquals(expected, domTransformer.transform(xml));
+        Path path = Files.createTempFile("docbook", ".xml");
+        try {
+            Files.write(path, xml);
+            assertEquals(expected, domTransformer.transform(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testCommentsAndCdata() {
+        byte[] xml = "<a><!-- comment --><b>1<![CDATA[<2>]]></b><b>3</b></a>".getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> result = domTransformer.transform(xml);
+        assertEquals("{a={b=[1<2>, 3]}}", result.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedXml() {
+        domTransformer.transform("<a><b></a>".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testExternalEntityIsNotExpanded() throws Exception {
+        Path secret = Files.createTempFile("secret", ".txt");
+        try {
+            Files.write(secret, "secret".getBytes(StandardCharsets.UTF_8));
+            byte[] xml = ("<?xml version=\"1.0\"?><!DOCTYPE a [<!ENTITY internal \"value\"><!ENTITY external SYSTEM \"" +
+                    secret.toUri() + "\">]><a><b>&internal;</b><c>&external;</c></a>").getBytes(StandardCharsets.UTF_8);
+            Map<String, Object> result = domTransformer.transform(xml);
+            assertEquals("{a={b=value, c=null}}", result.toString());
+        } finally {
+            Files.delete(secret);
+        }
+    }
+
+    @Test
+    public void testConcurrentParsing() throws Exception {
+        byte[] xml = readDocbook();
+        Map<String, Object> expected = domTransformer.transform(xml);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Map<String, Object>>> results = new ArrayList<>();
+            for(int i = 0; i < 100; i++){
+                results.add(executorService.submit(() -> domTransformer.transform(xml)));
+            }
+            for(Future<Map<String, Object>> result: results){
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private static byte[] readDocbook() throws Exception {
+        return Files.readAllBytes(Paths.get(ParseTransformTest.class.getResource("/docbook.xml").toURI()));
+    }
+}
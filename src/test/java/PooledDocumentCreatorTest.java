@@ -0,0 +1,63 @@
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import com.github.igorsuhorukov.dom.transform.document.PooledDocumentCreator;
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class PooledDocumentCreatorTest {
+
+    @Test
+    public void testBorrowAndRelease() {
+        PooledDocumentCreator documentCreator = new PooledDocumentCreator(DocumentBuilderFactory.newInstance(), 2);
+        DocumentBuilder first = documentCreator.borrow();
+        DocumentBuilder second = documentCreator.borrow();
+        DocumentBuilder third = documentCreator.borrow();
+        assertEquals(0, documentCreator.getHitCount());
+        assertEquals(3, documentCreator.getMissCount());
+        documentCreator.release(first);
+        documentCreator.release(second);
+        documentCreator.release(third);
+        assertEquals(1, documentCreator.getDropCount());
+
+        List<DocumentBuilder> borrowed = new ArrayList<>();
+        borrowed.add(documentCreator.borrow());
+        borrowed.add(documentCreator.borrow());
+        assertEquals(2, documentCreator.getHitCount());
+        assertTrue(borrowed.contains(first) || borrowed.contains(second) || borrowed.contains(third));
+        assertNotSame(borrowed.get(0), borrowed.get(1));
+    }
+
+    @Test
+    public void testConcurrentTransformation() throws Exception {
+        PooledDocumentCreator documentCreator = new PooledDocumentCreator();
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect(), documentCreator);
+        Map<String, Object> map = Collections.singletonMap("root", Collections.singletonMap("@id", BigInteger.ONE));
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Node>> results = new ArrayList<>();
+            for(int i = 0; i < 1000; i++){
+                results.add(executorService.submit(() -> domTransformer.transform(map)));
+            }
+            for(Future<Node> result: results){
+                assertEquals(map, domTransformer.transform(result.get()));
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assertEquals(1000, documentCreator.getHitCount() + documentCreator.getMissCount());
+        assertTrue(documentCreator.getHitCount() > 0);
+    }
+}
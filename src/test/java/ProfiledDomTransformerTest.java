@@ -0,0 +1,90 @@
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.ProfiledDomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import com.github.igorsuhorukov.dom.transform.profile.ElementShape;
+import com.github.igorsuhorukov.dom.transform.profile.ScalarType;
+import com.github.igorsuhorukov.dom.transform.profile.ShapeProfile;
+import com.github.igorsuhorukov.dom.transform.profile.XsdProfileReader;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ProfiledDomTransformerTest {
+
+    private static final String SCHEMA = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>" +
+            "<xs:element name='order'><xs:complexType><xs:sequence>" +
+            "<xs:element name='code' type='xs:string'/>" +
+            "<xs:element name='item' type='itemType' maxOccurs='unbounded'/>" +
+            "</xs:sequence><xs:attribute name='id' type='xs:long'/></xs:complexType></xs:element>" +
+            "<xs:complexType name='itemType'><xs:sequence>" +
+            "<xs:element name='price' type='xs:decimal'/>" +
+            "<xs:element name='item' type='itemType' minOccurs='0' maxOccurs='unbounded'/>" +
+            "</xs:sequence><xs:attribute name='sku' type='sku'/></xs:complexType>" +
+            "<xs:simpleType name='sku'><xs:restriction base='xs:string'/></xs:simpleType>" +
+            "</xs:schema>";
+
+    private final DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect());
+
+    @Test
+    public void testSchemaProfile() throws Exception {
+        ShapeProfile profile = new XsdProfileReader().read(new ByteArrayInputStream(SCHEMA.getBytes(StandardCharsets.UTF_8)));
+        ElementShape item = profile.getRoot("order").getElement("item");
+        assertTrue(profile.getRoot("order").isRepeated("item"));
+        assertSame(item, item.getElement("item"));
+        assertEquals(ScalarType.STRING, item.getAttributes().get("sku"));
+
+        ProfiledDomTransformer transformer = new ProfiledDomTransformer(domTransformer, profile);
+        Map<String, Object> result = transformer.transform(parse(
+                "<order id='7'><code>0012</code><item sku='100'><price>1.50</price></item></order>").getDocumentElement());
+        Map<?, ?> order = (Map<?, ?>) result.get("order");
+        assertEquals(7L, order.get("@id"));
+        assertEquals("0012", order.get("code"));
+        List<?> items = (List<?>) order.get("item");
+        assertEquals(1, items.size());
+        Map<?, ?> firstItem = (Map<?, ?>) items.get(0);
+        assertEquals("100", firstItem.get("@sku"));
+        assertEquals(new BigDecimal("1.50"), firstItem.get("price"));
+    }
+
+    @Test
+    public void testSameAsGenericForMatchingDocument() throws Exception {
+        ElementShape item = new ElementShape().addAttribute("id", ScalarType.AUTO);
+        item.addElement("name", new ElementShape(ScalarType.AUTO), false).addElement("item", item, true);
+        ShapeProfile profile = new ShapeProfile().addRoot("root", new ElementShape(ScalarType.AUTO).addElement("item", item, true));
+        Document document = parse("<root>text<item id='1'><name>a</name></item><item id='2'><name>b</name>" +
+                "<item id='3'><name>4</name></item><item/></item><!-- comment --></root>");
+        ProfiledDomTransformer transformer = new ProfiledDomTransformer(domTransformer, profile);
+        assertEquals(domTransformer.transform(document.getDocumentElement()), transformer.transform(document.getDocumentElement()));
+    }
+
+    @Test
+    public void testDeviationFromProfile() throws Exception {
+        ShapeProfile profile = new ShapeProfile().addRoot("root",
+                new ElementShape().addElement("value", new ElementShape(ScalarType.LONG), false));
+        ProfiledDomTransformer transformer = new ProfiledDomTransformer(domTransformer, profile);
+        Map<String, Object> result = transformer.transform(parse(
+                "<root>ignored<value>x</value><value>2</value><other><a>1</a></other></root>").getDocumentElement());
+        Map<?, ?> root = (Map<?, ?>) result.get("root");
+        assertEquals(2, root.size());
+        assertEquals(2, ((List<?>) root.get("value")).size());
+        assertEquals("x", ((List<?>) root.get("value")).get(0));
+        assertEquals(Collections.singletonMap("a", BigInteger.ONE), root.get("other"));
+        assertEquals(domTransformer.transform(parse("<other/>").getDocumentElement()),
+                transformer.transform(parse("<other/>").getDocumentElement()));
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().
+                parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,66 @@
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.Projection;
+import com.github.igorsuhorukov.dom.transform.StaxTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class ProjectionTest {
+
+    private static final String XML = "<order id='1' code='a'>text<info><title>T</title><date>2020</date></info>" +
+            "<item sku='x'><qty>1</qty></item><item sku='y'><qty>2</qty><part sku='z'/></item><note/></order>";
+
+    private final DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect());
+    private final StaxTransformer staxTransformer = new StaxTransformer(domTransformer);
+
+    @Test
+    public void testSelectedPaths() throws Exception {
+        assertProjection("{order={info={title=T}}}", "/order/info/title");
+        assertProjection("{order={@id=1, info={title=T, date=2020}}}", "/order/@id", "/order/info");
+        assertProjection("{order={item=[{@sku=x}, {@sku=y, part={@sku=z}}]}}", "//@sku");
+        assertProjection("{order={item=[{qty=1}, {qty=2}]}}", "/order/*/qty");
+        assertProjection("{order={item=[{@sku=x}, {@sku=y}]}}", "//item/@sku");
+        assertProjection("{order={item=[{qty=1}, {qty=2}], info={title=T}}}", "//title", "//item//qty");
+        assertProjection("{}", "/other");
+        assertProjection("{}", "/order/missing/@id");
+    }
+
+    @Test
+    public void testDocbookSameAsStax() throws Exception {
+        String[][] projections = {{"/article/info/title"}, {"//section/@xml:id", "//section/title"},
+                {"/article/@*", "//link"}, {"//para//tag"}};
+        for(String[] paths: projections){
+            Projection projection = new Projection(paths);
+            Node document;
+            try (InputStream stream = ProjectionTest.class.getResourceAsStream("/docbook.xml")){
+                document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream).getDocumentElement();
+            }
+            try (InputStream stream = ProjectionTest.class.getResourceAsStream("/docbook.xml")){
+                assertEquals(String.join(",", paths), domTransformer.transform(document, projection),
+                        staxTransformer.transform(stream, projection));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPath() {
+        new Projection("/order/@id/qty");
+    }
+
+    private void assertProjection(String expected, String... paths) throws Exception {
+        Projection projection = new Projection(paths);
+        Node node = DocumentBuilderFactory.newInstance().newDocumentBuilder().
+                parse(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8))).getDocumentElement();
+        Map<String, Object> result = domTransformer.transform(node, projection);
+        assertEquals(expected, result.toString());
+        assertEquals(result, staxTransformer.transform(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)), projection));
+    }
+}
@@ -0,0 +1,63 @@
+import com.github.igorsuhorukov.dom.transform.profile.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ShapeInferenceTest {
+
+    @Test
+    public void testScanDirectory() throws Exception {
+        Path directory = Files.createTempDirectory("corpus");
+        try {
+            Files.createDirectory(directory.resolve("nested"));
+            for(int i = 0; i < 100; i++){
+                String items = i==42 ? "<item>1</item><item>2.5</item>" : "<item>" + i + "</item>";
+                String xml = "<order id='" + i + "' code='c" + i + "'>\n  <flag>true</flag>\n  " + items + "\n</order>";
+                Path file = directory.resolve(i % 2==0 ? "nested" : ".").resolve("order" + i + ".xml");
+                Files.write(file, xml.getBytes(StandardCharsets.UTF_8));
+            }
+            Files.write(directory.resolve("readme.txt"), "not xml".getBytes(StandardCharsets.UTF_8));
+
+            CorpusStatistics statistics = new ShapeInference().scan(directory);
+            assertEquals(100, statistics.getDocumentCount());
+            ElementStatistics order = statistics.getRoots().get("order");
+            assertEquals(100, order.getCount());
+            assertEquals(0, order.getText().getCount());
+            assertEquals(ScalarType.LONG, order.getAttributes().get("id").getScalarType());
+            assertEquals(ScalarType.STRING, order.getAttributes().get("code").getScalarType());
+            assertEquals(101, order.getElements().get("item").getCount());
+            assertEquals(2, order.getElements().get("item").getMaxOccurrences());
+
+            ShapeProfile profile = roundTrip(statistics).toProfile();
+            ElementShape orderShape = profile.getRoot("order");
+            assertFalse(orderShape.hasText());
+            assertTrue(orderShape.isRepeated("item"));
+            assertFalse(orderShape.isRepeated("flag"));
+            assertEquals(ScalarType.DECIMAL, orderShape.getElement("item").getTextType());
+            assertEquals(ScalarType.BOOLEAN, orderShape.getElement("flag").getTextType());
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)){
+                paths.sorted((first, second) -> second.compareTo(first)).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static CorpusStatistics roundTrip(CorpusStatistics statistics) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)){
+            objectOutputStream.writeObject(statistics);
+        }
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(outputStream.toByteArray()))){
+            return (CorpusStatistics) objectInputStream.readObject();
+        }
+    }
+}
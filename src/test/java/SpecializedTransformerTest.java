@@ -0,0 +1,79 @@
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.ProfiledDomTransformer;
+import com.github.igorsuhorukov.dom.transform.SpecializedTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import com.github.igorsuhorukov.dom.transform.profile.ElementShape;
+import com.github.igorsuhorukov.dom.transform.profile.ScalarType;
+import com.github.igorsuhorukov.dom.transform.profile.ShapeProfile;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SpecializedTransformerTest {
+
+    private final DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect());
+    private final ShapeProfile profile = createProfile();
+
+    @Test
+    public void testConformingDocuments() throws Exception {
+        SpecializedTransformer transformer = new SpecializedTransformer(domTransformer, profile);
+        ProfiledDomTransformer profiledTransformer = new ProfiledDomTransformer(domTransformer, profile);
+        String[] documents = {
+                "<order id='1' date='2020-01-01'>\n <item sku='a'><qty>2</qty><price>1.5</price></item>\n</order>",
+                "<order id='2'><item sku='b'><qty>x</qty><part sku='c'><qty>1</qty></part><part/></item><item/></order>",
+                "<order>note<code> 12 </code></order>",
+                "<order/>"};
+        for(String xml: documents){
+            Node node = parse(xml).getDocumentElement();
+            Map<String, Object> result = transformer.transform(node);
+            assertEquals(xml, profiledTransformer.transform(node), result);
+            Node restored = transformer.transform(result);
+            assertTrue(xml, domTransformer.transform(result).isEqualNode(restored));
+        }
+        assertEquals(0, transformer.getFallbackCount());
+    }
+
+    @Test
+    public void testDeviatingDocuments() throws Exception {
+        SpecializedTransformer transformer = new SpecializedTransformer(domTransformer, profile);
+        ProfiledDomTransformer profiledTransformer = new ProfiledDomTransformer(domTransformer, profile);
+        String[] documents = {
+                "<order unknown='1'><item/></order>",
+                "<order><item><qty>1</qty><qty>2</qty></item></order>",
+                "<order><item><extra>1</extra></item></order>",
+                "<order><code a='1'>2</code></order>"};
+        for(String xml: documents){
+            Node node = parse(xml).getDocumentElement();
+            assertEquals(xml, profiledTransformer.transform(node), transformer.transform(node));
+        }
+        assertEquals(documents.length, transformer.getFallbackCount());
+
+        Map<String, Object> deviatingMap = domTransformer.transform(parse("<order><other>1</other></order>").getDocumentElement());
+        assertTrue(domTransformer.transform(deviatingMap).isEqualNode(transformer.transform(deviatingMap)));
+        assertEquals(documents.length + 1, transformer.getFallbackCount());
+    }
+
+    private static ShapeProfile createProfile() {
+        ElementShape item = new ElementShape().addAttribute("sku", ScalarType.STRING).
+                addElement("qty", new ElementShape(ScalarType.LONG), false).
+                addElement("price", new ElementShape(ScalarType.DECIMAL), false);
+        item.addElement("part", item, true);
+        ElementShape order = new ElementShape(ScalarType.STRING).addAttribute("id", ScalarType.LONG).
+                addAttribute("date", ScalarType.STRING).
+                addElement("code", new ElementShape(ScalarType.STRING), false).
+                addElement("item", item, true);
+        return new ShapeProfile().addRoot("order", order);
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().
+                parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,85 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.RecordSplitter;
+import com.github.igorsuhorukov.dom.transform.StaxTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.NopTypeConverter;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import com.github.igorsuhorukov.dom.transform.document.DefaultDocumentCreator;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class StaxTransformerTest {
+
+    private static final String MIXED_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><root xmlns:p=\"urn:p\" a=\"1\" b=\"x\">" +
+            "text<!-- comment -->more<![CDATA[ <cdata> ]]><item id=\"1\">one</item><p:item>two</p:item><item/><_x0031_name>2</_x0031_name>" +
+            "<?target data?><nested><leaf>true</leaf><leaf2>3.5</leaf2></nested><item>three</item></root>";
+
+    @Test
+    public void testDocbookSameAsDom() throws Exception {
+        assertSameAsDom(new DomTransformer(new NopTypeConverter()), readResource("/docbook.xml"));
+        assertSameAsDom(new DomTransformer(new TypeAutoDetect(), new DefaultDocumentCreator(),
+                name -> "attr::"+name, (String name) -> name.startsWith("attr::"),
+                (String name) ->  name.substring("attr::".length()),"contentValue_"), readResource("/docbook.xml"));
+    }
+
+    @Test
+    public void testMixedContentSameAsDom() throws Exception {
+        assertSameAsDom(new DomTransformer(new TypeAutoDetect()), MIXED_XML.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSplitRecords() throws Exception {
+        String feed = "<feed><meta><item>skipped</item></meta><item id=\"1\"><name>a</name></item>" +
+                "<other/><item id=\"2\"><name>b</name><name>c</name></item><item>3</item></feed>";
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect());
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().
+                parse(new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)));
+        NodeList items = document.getDocumentElement().getElementsByTagName("item");
+        List<Map<String, Object>> expected = new ArrayList<>();
+        for(int i = 1; i < items.getLength(); i++){
+            expected.add(domTransformer.transform(items.item(i)));
+        }
+        List<Map<String, Object>> records = new ArrayList<>();
+        new RecordSplitter(domTransformer, "/feed/item").
+                split(new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)), records::add);
+        assertEquals(expected, records);
+
+        XMLStreamReader reader = XMLInputFactory.newInstance().
+                createXMLStreamReader(new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)));
+        List<Map<String, Object>> iterated = new ArrayList<>();
+        new RecordSplitter(domTransformer, "/*/item").iterator(reader).forEachRemaining(iterated::add);
+        assertEquals(expected, iterated);
+    }
+
+    private void assertSameAsDom(DomTransformer domTransformer, byte[] xml) throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+        ObjectMapper objectMapper = new ObjectMapper();
+        String expected = objectMapper.writeValueAsString(domTransformer.transform(document.getDocumentElement()));
+        String actual = objectMapper.writeValueAsString(new StaxTransformer(domTransformer).transform(new ByteArrayInputStream(xml)));
+        assertEquals(expected, actual);
+    }
+
+    private static byte[] readResource(String name) throws Exception {
+        try (InputStream stream = StaxTransformerTest.class.getResourceAsStream(name)){
+            byte[] buffer = new byte[stream.available()];
+            int length = 0;
+            for(int read; (read = stream.read(buffer, length, buffer.length - length)) > 0;){
+                length += read;
+            }
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import com.github.igorsuhorukov.dom.transform.*;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import com.github.igorsuhorukov.dom.transform.document.DefaultDocumentCreator;
+import com.github.igorsuhorukov.dom.transform.profile.ElementShape;
+import com.github.igorsuhorukov.dom.transform.profile.ScalarType;
+import com.github.igorsuhorukov.dom.transform.profile.ShapeProfile;
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TransformationListenerTest {
+
+    private static final byte[] XML = ("<order id=\"1\" state=\"new\"><item>apple</item><item>pear</item>" +
+            "<note><![CDATA[d\u00e9j\u00e0]]></note><customer><name>Ann</name></customer></order>").getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testStatistics() throws Exception {
+        List<TransformationStatistics> calls = new ArrayList<>();
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect(), new DefaultDocumentCreator(), calls::add);
+        Map<String, Object> result = domTransformer.transform(XML);
+        assertEquals(new DomTransformer(new TypeAutoDetect()).transform(XML), result);
+        assertEquals(1, calls.size());
+        TransformationStatistics statistics = calls.get(0);
+        assertEquals(6, statistics.getElementCount());
+        assertEquals(2, statistics.getAttributeCount());
+        assertEquals(4, statistics.getTextNodeCount());
+        assertEquals("apple".length() + "pear".length() + "Ann".length() + 6, statistics.getTextBytes());
+        assertEquals(3, statistics.getMaxDepth());
+        assertTrue(statistics.getTypeConversionCount() > 0);
+        assertTrue(statistics.getParseNanos() > 0);
+        assertTrue(statistics.getTotalNanos() >= statistics.getParseNanos() + statistics.getNestedElementsNanos());
+    }
+
+    @Test
+    public void testDisabledListener() throws Exception {
+        List<TransformationStatistics> calls = new ArrayList<>();
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect(), new DefaultDocumentCreator(),
+                new TransformationListener() {
+                    @Override
+                    public boolean isEnabled() {
+                        return false;
+                    }
+
+                    @Override
+                    public void transformed(TransformationStatistics statistics) {
+                        calls.add(statistics);
+                    }
+                });
+        domTransformer.transform(XML);
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void testProjectionReportedOnce() throws Exception {
+        List<TransformationStatistics> calls = new ArrayList<>();
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect(), new DefaultDocumentCreator(), calls::add);
+        Map<String, Object> result = domTransformer.transform(parse(XML), new Projection("/order/item", "/order/@id"));
+        assertEquals(new DomTransformer(new TypeAutoDetect()).transform(parse(XML), new Projection("/order/item", "/order/@id")),
+                result);
+        assertEquals(1, calls.size());
+        assertEquals(3, calls.get(0).getElementCount());
+        assertEquals(2, calls.get(0).getMaxDepth());
+    }
+
+    @Test
+    public void testNestedFallbackNotReported() throws Exception {
+        List<TransformationStatistics> calls = new ArrayList<>();
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect(), new DefaultDocumentCreator(), calls::add);
+        ShapeProfile profile = new ShapeProfile().addRoot("order", new ElementShape().addElement("item",
+                new ElementShape(ScalarType.AUTO), true));
+        ProfiledDomTransformer profiledTransformer = new ProfiledDomTransformer(domTransformer, profile);
+        profiledTransformer.transform(parse(XML));
+        assertTrue(calls.isEmpty());
+        AdaptiveDomTransformer adaptiveTransformer = new AdaptiveDomTransformer(domTransformer, 1);
+        adaptiveTransformer.transform(parse(XML));
+        assertEquals(1, calls.size());
+        adaptiveTransformer.transform(parse(XML));
+        assertEquals(1, calls.size());
+    }
+
+    private static Node parse(byte[] xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(xml)).
+                getDocumentElement();
+    }
+}
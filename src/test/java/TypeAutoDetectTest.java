@@ -0,0 +1,77 @@
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+public class TypeAutoDetectTest {
+
+    private static final String ALPHABET = "0123456789+-.eE tTrRuUfFaAlLsS\u0663";
+
+    @Test
+    public void testSameAsRegexDetection() {
+        TypeAutoDetect typeAutoDetect = new TypeAutoDetect();
+        List<String> values = new ArrayList<>(Arrays.asList("", "+", "-", ".", "+.", "5.", ".5", "-.5", "+0", "-0.0",
+                "007.50", "true", "TRUE", "True", "false", "FALSE", "falsey", "1e5", "1.2.3", "--1", "1-",
+                "9223372036854775807", "9223372036854775808", "-9223372036854775809", "123456789012345678",
+                "1234567890123456789.0123456789", "0.000000000000000000000001"));
+        Random random = new Random(42);
+        for(int i = 0; i < 100000; i++){
+            StringBuilder value = new StringBuilder();
+            int length = random.nextInt(25);
+            for(int j = 0; j < length; j++){
+                value.append(ALPHABET.charAt(random.nextInt(random.nextBoolean() ? 13 : ALPHABET.length())));
+            }
+            values.add(value.toString());
+        }
+        for(String value: values){
+            Object expected = regexTransform(value);
+            Object actual = typeAutoDetect.transform(value);
+            assertEquals(value, expected, actual);
+            assertEquals(value, expected.getClass(), actual.getClass());
+        }
+    }
+
+    @Test
+    public void testPrimitivePolicy() {
+        TypeAutoDetect typeAutoDetect = new TypeAutoDetect(TypeAutoDetect.NumberPolicy.PRIMITIVE_WHEN_EXACT);
+        assertEquals(12L, typeAutoDetect.transform("+12"));
+        assertEquals(Long.MAX_VALUE, typeAutoDetect.transform("9223372036854775807"));
+        assertEquals(Long.MIN_VALUE, typeAutoDetect.transform("-9223372036854775808"));
+        assertEquals(new BigInteger("9223372036854775808"), typeAutoDetect.transform("9223372036854775808"));
+        assertEquals(-0.5, typeAutoDetect.transform("-.5"));
+        assertEquals(-0.0, typeAutoDetect.transform("-0.0"));
+        assertEquals(0.1, typeAutoDetect.transform("0.1"));
+        assertEquals(123456789.012345, typeAutoDetect.transform("123456789.012345"));
+        assertEquals(1e-30, typeAutoDetect.transform("0.000000000000000000000000000001"));
+        assertEquals(new BigDecimal("1234567890.1234567"), typeAutoDetect.transform("1234567890.1234567"));
+        assertEquals(Boolean.TRUE, typeAutoDetect.transform("TRUE"));
+        assertEquals("1e5", typeAutoDetect.transform("1e5"));
+        Random random = new Random(7);
+        for(int i = 0; i < 100000; i++){
+            String value = Long.toString(random.nextLong() % 1000000000000000L) + "." + Math.abs(random.nextInt() % 1000);
+            Object result = typeAutoDetect.transform(value);
+            if(result instanceof Double){
+                assertEquals(value, Double.parseDouble(value), result);
+                assertEquals(value, 0, new BigDecimal(value).compareTo(new BigDecimal(result.toString())));
+            }
+        }
+    }
+
+    /**
+     * Detection implementation before scanner rewrite, kept as reference of accepted values
+     */
+    private static Object regexTransform(String data) {
+        Map<Pattern, Function<String, Object>> matchers = new LinkedHashMap<>();
+        matchers.put(Pattern.compile("true|TRUE|false|FALSE"), Boolean::parseBoolean);
+        matchers.put(Pattern.compile("[+-]?\\d+"), BigInteger::new);
+        matchers.put(Pattern.compile("[+-]?(\\d*[.])?\\d+"), BigDecimal::new);
+        return matchers.entrySet().stream().filter(entry -> entry.getKey().matcher(data).matches()).findFirst().
+                map(entry -> entry.getValue().apply(data)).orElse(data);
+    }
+}
@@ -0,0 +1,72 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.NopTypeConverter;
+import org.apache.jackrabbit.util.ISO9075;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class WideElementTest {
+
+    @Test
+    public void testSameShapeAsLegacyGrouping() throws Exception {
+        DomTransformer domTransformer = new DomTransformer(new NopTypeConverter());
+        ObjectMapper objectMapper = new ObjectMapper();
+        Random random = new Random(42);
+        for(int iteration = 0; iteration < 200; iteration++){
+            int childCount = 1 + random.nextInt(iteration < 100 ? 20 : 2000);
+            int nameCount = 1 + random.nextInt(childCount);
+            Element element = createWideElement(childCount, nameCount, random);
+            List<Map<String, Object>> nestedElements = new ArrayList<>();
+            NodeList childNodes = element.getChildNodes();
+            for(int i = 0; i < childNodes.getLength(); i++){
+                nestedElements.add(domTransformer.transform(childNodes.item(i)));
+            }
+            Map<String, Object> expected = Collections.singletonMap("wide", legacyProcessNestedElements(nestedElements));
+            assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(domTransformer.transform(element)));
+        }
+    }
+
+    private static Element createWideElement(int childCount, int nameCount, Random random) throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element wide = document.createElement("wide");
+        for(int i = 0; i < childCount; i++){
+            Element child = document.createElement(random.nextInt(10)==0 ? "_x0031_n"+random.nextInt(nameCount) : "n"+random.nextInt(nameCount));
+            child.appendChild(document.createTextNode(Integer.toString(i)));
+            wide.appendChild(child);
+        }
+        return wide;
+    }
+
+    /**
+     * Grouping implementation before single pass rewrite, kept as reference of the result shape
+     */
+    private static Map<String, Object> legacyProcessNestedElements(List<Map<String, Object>> nestedElements) {
+        Map<String, Object> resultNodes = new LinkedHashMap<>();
+        if(nestedElements.stream().map(Map::keySet).flatMap(Collection::stream).distinct().count() == nestedElements.size()){
+            nestedElements.stream().map(Map::entrySet).flatMap(Collection::stream).
+                    forEach(entry -> resultNodes.put(ISO9075.decode(entry.getKey()), entry.getValue()));
+        } else {
+            Map<String, Long> keyCountFreq = nestedElements.stream().map(Map::keySet).flatMap(Collection::stream).
+                    collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+            keyCountFreq.entrySet().stream().filter(entry-> entry.getValue()>1).map(Map.Entry::getKey).
+                    forEach(fieldName -> resultNodes.put(ISO9075.decode(fieldName),
+                            nestedElements.stream().map(Map::entrySet).
+                                    flatMap(Collection::stream).filter(entry -> fieldName.equals(entry.getKey())).
+                                    map(Map.Entry::getValue).collect(Collectors.toList())));
+            nestedElements.stream().map(Map::entrySet).flatMap(Collection::stream).
+                    filter(entry -> keyCountFreq.get(entry.getKey()) == 1L).
+                    forEach(entry -> resultNodes.put(ISO9075.decode(entry.getKey()), entry.getValue()));
+        }
+        return resultNodes;
+    }
+}
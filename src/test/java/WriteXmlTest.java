@@ -0,0 +1,67 @@
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.converter.NopTypeConverter;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import com.github.igorsuhorukov.dom.transform.document.DefaultDocumentCreator;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class WriteXmlTest {
+
+    @Test
+    public void testDocbookSameAsDomSerialization() throws Exception {
+        Document document;
+        try (InputStream stream = WriteXmlTest.class.getResourceAsStream("/docbook.xml")){
+            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream);
+        }
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect(), new DefaultDocumentCreator(),
+                name -> "attr::"+name, (String name) -> name.startsWith("attr::"),
+                (String name) ->  name.substring("attr::".length()),"contentValue_");
+        assertSameAsDomSerialization(domTransformer, domTransformer.transform(document.getDocumentElement()));
+    }
+
+    @Test
+    public void testEscapingSameAsDomSerialization() throws Exception {
+        StringBuilder allChars = new StringBuilder();
+        for(char symbol = 1; symbol < 0x100; symbol++){
+            allChars.append(symbol);
+        }
+        allChars.append("\u2028\ufffe\ud83d\ude00 \udc00x\u0800\uffff");
+        String json = new ObjectMapper().writeValueAsString(allChars.toString());
+        Map<String, Object> map = new ObjectMapper().readValue("{\"1 root\":{\"@b\":"+json+",\"@a\":1,\"text\":"+json+
+                ",\"empty\":\"\",\"none\":null,\"_val_\":\"v&\",\"obj\":{},\"list\":[1,null,{\"@id\":2,\"x\":[]},[3,4]],\"@x y\":\"\"}}",
+                new TypeReference<Map<String, Object>>() {});
+        assertSameAsDomSerialization(new DomTransformer(new NopTypeConverter()), map);
+        assertSameAsDomSerialization(new DomTransformer(new NopTypeConverter()),
+                new ObjectMapper().readValue("{\"root\":[{\"@id\":1},\"text\",{\"child\":true}]}", new TypeReference<Map<String, Object>>() {}));
+    }
+
+    private void assertSameAsDomSerialization(DomTransformer domTransformer, Map<String, Object> map) throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(domTransformer.transform(map)), new StreamResult(expected));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        domTransformer.writeXml(map, bytes);
+        assertArrayEquals(expected.toByteArray(), bytes.toByteArray());
+
+        StringWriter chars = new StringWriter();
+        domTransformer.writeXml(map, chars);
+        assertEquals(new String(expected.toByteArray(), StandardCharsets.UTF_8), chars.toString());
+    }
+}
@@ -0,0 +1,51 @@
+import com.github.igorsuhorukov.dom.transform.DomTransformer;
+import com.github.igorsuhorukov.dom.transform.JfrTransformationListener;
+import com.github.igorsuhorukov.dom.transform.converter.TypeAutoDetect;
+import com.github.igorsuhorukov.dom.transform.document.DefaultDocumentCreator;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JfrTransformationListenerTest {
+
+    @Test
+    public void testFlightRecorderEvent() throws Exception {
+        Assume.assumeTrue(JfrTransformationListener.isAvailable());
+        DomTransformer domTransformer = new DomTransformer(new TypeAutoDetect(), new DefaultDocumentCreator(),
+                JfrTransformationListener.createIfAvailable());
+        Path file = Files.createTempFile("transformation", ".jfr");
+        try {
+            try (Recording recording = new Recording()){
+                recording.enable("com.github.igorsuhorukov.dom.transform.Transformation");
+                recording.start();
+                try (InputStream stream = JfrTransformationListenerTest.class.getResourceAsStream("/docbook.xml")){
+                    domTransformer.transform(stream);
+                }
+                recording.stop();
+                recording.dump(file);
+            }
+            List<RecordedEvent> events = new ArrayList<>();
+            for(RecordedEvent event: RecordingFile.readAllEvents(file)){
+                if(event.getEventType().getName().equals("com.github.igorsuhorukov.dom.transform.Transformation")){
+                    events.add(event);
+                }
+            }
+            assertEquals(1, events.size());
+            assertTrue(events.get(0).getLong("elementCount") > 0);
+            assertTrue(events.get(0).getInt("maxDepth") > 1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}